@@ -0,0 +1,66 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.function.BiConsumer;
+
+/**
+ * InstrumentedStreams每个stage在一次执行结束时提交的JFR事件。
+ * 放在单独的src/jfr/java里，只有编译用的jdk带jdk.jfr时（pom的jfr profile）才编译，src/main不依赖jdk.jfr；
+ * 运行时InstrumentedStreams确认jdk.jfr.Event存在之后才反射加载这个类，找不到时只提供snapshot
+ *
+ * @author gongzuo.zy
+ * @version $Id: StreamStageEvent.java, v0.1 2026-10-19 19:40  gongzuo.zy Exp $
+ */
+@Name("com.qunar.kris.share.jdk8.StreamStage")
+@Label("Stream Stage")
+@Category("Stream")
+final class StreamStageEvent extends Event {
+
+    @Label("Pipeline")
+    String pipeline;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Elements In")
+    long elementsIn;
+
+    @Label("Elements Out")
+    long elementsOut;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    // 由InstrumentedStreams通过Class.forName创建
+    static final class Emitter implements BiConsumer<String, InstrumentedStreams.Stage> {
+
+        @Override
+        public void accept(String pipeline, InstrumentedStreams.Stage stage) {
+            StreamStageEvent event = new StreamStageEvent();
+            if (event.isEnabled()) {
+                event.pipeline = pipeline;
+                event.stage = stage.name();
+                event.elementsIn = stage.elementsIn();
+                event.elementsOut = stage.elementsOut();
+                event.time = stage.nanos();
+                event.allocated = stage.allocated();
+                event.commit();
+            }
+        }
+    }
+}
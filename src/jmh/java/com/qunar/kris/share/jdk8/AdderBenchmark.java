@@ -0,0 +1,101 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 泛型加法器与基本类型加法器的分配率对比，使用 -prof gc 运行，
+ * 基本类型版本的gc.alloc.rate.norm应当为0（与size无关）
+ *
+ * @author gongzuo.zy
+ * @version $Id: AdderBenchmark.java, v0.1 2026-10-18 11:30  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdderBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    // 并行累加的顺序阈值
+    @Param({"8192"})
+    int threshold;
+
+    int[] ints;
+
+    long[] longs;
+
+    double[] doubles;
+
+    List<Integer> boxedInts;
+
+    List<Long> boxedLongs;
+
+    List<Double> boxedDoubles;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ints = new int[size];
+        longs = new long[size];
+        doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            // 取值超出Integer缓存范围，才能看到真实的装箱开销
+            ints[i] = random.nextInt(100000);
+            longs[i] = random.nextLong();
+            doubles[i] = random.nextDouble();
+        }
+        boxedInts = Ints.asList(ints);
+        boxedLongs = Longs.asList(longs);
+        boxedDoubles = Doubles.asList(doubles);
+    }
+
+    @Benchmark
+    public Integer intBoxed() {
+        return LambdaStudy.AdderHelper.addList(boxedInts, (LambdaStudy.Adder<Integer>) LambdaStudy.AdderHelper::add);
+    }
+
+    @Benchmark
+    public Integer intBoxedParallel() {
+        return LambdaStudy.AdderHelper.addListParallel(boxedInts, (LambdaStudy.AssociativeAdder<Integer>) LambdaStudy.AdderHelper::add, threshold);
+    }
+
+    @Benchmark
+    public int intPrimitive() {
+        return LambdaStudy.AdderHelper.addList(ints, LambdaStudy.AdderHelper::add);
+    }
+
+    @Benchmark
+    public Long longBoxed() {
+        return LambdaStudy.AdderHelper.addList(boxedLongs, (LambdaStudy.Adder<Long>) (a, b) -> a + b);
+    }
+
+    @Benchmark
+    public long longPrimitive() {
+        return LambdaStudy.AdderHelper.addList(longs, (LambdaStudy.LongAdder) (a, b) -> a + b);
+    }
+
+    @Benchmark
+    public Double doubleBoxed() {
+        return LambdaStudy.AdderHelper.addList(boxedDoubles, (LambdaStudy.Adder<Double>) (a, b) -> a + b);
+    }
+
+    @Benchmark
+    public double doublePrimitive() {
+        return LambdaStudy.AdderHelper.addList(doubles, (LambdaStudy.DoubleAdder) (a, b) -> a + b);
+    }
+}
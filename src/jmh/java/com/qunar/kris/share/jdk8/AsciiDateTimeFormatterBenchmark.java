@@ -0,0 +1,87 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问日志格式化时间：DateTimeFormatter.format再getBytes和AsciiDateTimeFormatter直接写ByteBuffer的对比（ns/op）。
+ * 时间按日志的样子每次前进step毫秒；分配用-prof gc看gc.alloc.rate.norm
+ *
+ * @author gongzuo.zy
+ * @version $Id: AsciiDateTimeFormatterBenchmark.java, v0.1 2026-10-19 05:30  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AsciiDateTimeFormatterBenchmark {
+
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    private static final ZoneId SHANGHAI = ZoneId.of("Asia/Shanghai");
+
+    // 1毫秒：同一秒内的多条日志；1001毫秒：每条都换秒
+    @Param({"1", "1001"})
+    long step;
+
+    DateTimeFormatter formatter;
+
+    AsciiDateTimeFormatter ascii;
+
+    ByteBuffer heap;
+
+    ByteBuffer direct;
+
+    long millis;
+
+    @Setup
+    public void setup() {
+        formatter = DateTimeFormatter.ofPattern(PATTERN).withZone(SHANGHAI);
+        ascii = AsciiDateTimeFormatter.ofPattern(PATTERN).withZone(SHANGHAI);
+        heap = ByteBuffer.allocate(4096);
+        direct = ByteBuffer.allocateDirect(4096);
+        millis = Instant.parse("2026-10-19T00:00:00Z").toEpochMilli();
+    }
+
+    private long next() {
+        millis += step;
+        return millis;
+    }
+
+    @Benchmark
+    public int formatterGetBytes() {
+        heap.clear();
+        heap.put(formatter.format(Instant.ofEpochMilli(next())).getBytes(StandardCharsets.US_ASCII));
+        return heap.position();
+    }
+
+    @Benchmark
+    public int asciiHeapBuffer() {
+        heap.clear();
+        return ascii.formatEpochMillis(next(), heap);
+    }
+
+    @Benchmark
+    public int asciiDirectBuffer() {
+        direct.clear();
+        return ascii.formatEpochMillis(next(), direct);
+    }
+
+    @Benchmark
+    public int asciiInstant() {
+        heap.clear();
+        return ascii.format(Instant.ofEpochMilli(next()), heap);
+    }
+}
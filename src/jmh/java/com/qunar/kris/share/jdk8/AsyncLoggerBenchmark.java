@@ -0,0 +1,89 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * 调用线程上的日志延迟分布（SampleTime模式会输出p50/p90/p99/p99.9等分位数）：
+ * ProgramLambdaStudy.info同步写 vs AsyncLogger异步写
+ *
+ * @author gongzuo.zy
+ * @version $Id: AsyncLoggerBenchmark.java, v0.1 2026-10-18 20:00  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncLoggerBenchmark {
+
+    Logger logger;
+
+    AsyncLogger dropLogger;
+
+    AsyncLogger blockLogger;
+
+    long counter;
+
+    @Setup
+    public void setup() {
+        logger = Logger.getLogger("benchmark");
+        logger.setUseParentHandlers(false);
+        // 只格式化不输出，避免控制台IO干扰结果
+        logger.addHandler(new Handler() {
+            final SimpleFormatter formatter = new SimpleFormatter();
+
+            @Override
+            public void publish(LogRecord record) {
+                formatter.format(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        dropLogger = new AsyncLogger(1 << 14, AsyncLogger.Overflow.DROP);
+        blockLogger = new AsyncLogger(1 << 14, AsyncLogger.Overflow.BLOCK);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dropLogger.close();
+        blockLogger.close();
+        for (Handler handler : logger.getHandlers()) {
+            logger.removeHandler(handler);
+        }
+    }
+
+    @Benchmark
+    public void sync() {
+        long n = counter++;
+        ProgramLambdaStudy.info(logger, () -> "request " + n + " finished");
+    }
+
+    @Benchmark
+    public boolean asyncDrop() {
+        long n = counter++;
+        return dropLogger.info(logger, () -> "request " + n + " finished");
+    }
+
+    @Benchmark
+    public boolean asyncBlock() {
+        long n = counter++;
+        return blockLogger.info(logger, () -> "request " + n + " finished");
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * doInOrderAsync吞吐对比：每次调用new Thread vs 有界线程池流水线，每次操作提交size个任务并等待全部完成
+ *
+ * @author gongzuo.zy
+ * @version $Id: AsyncPipelineBenchmark.java, v0.1 2026-10-18 13:40  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncPipelineBenchmark {
+
+    @Param({"100", "10000"})
+    int size;
+
+    AsyncPipeline pipeline;
+
+    AtomicLong sink = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        pipeline = new AsyncPipeline("bench", Runtime.getRuntime().availableProcessors(), 1024,
+                AsyncPipeline.Overflow.CALLER_RUNS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    // 原来的实现：每次调用一个新线程
+    static <T> void threadPerCall(Supplier<T> first, Consumer<T> second, Consumer<Throwable> handler) {
+        Thread t = new Thread() { public void run() {
+            try {
+                T result = first.get(); second.accept(result);
+            } catch (Throwable t) { handler.accept(t);
+            } }
+        };
+        t.start();
+    }
+
+    @Benchmark
+    public void threadPerCall() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(size);
+        for (int i = 0; i < size; i++) {
+            int n = i;
+            threadPerCall(() -> n * 31, v -> {
+                sink.addAndGet(v);
+                latch.countDown();
+            }, e -> latch.countDown());
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    public void pipeline() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[size];
+        for (int i = 0; i < size; i++) {
+            int n = i;
+            futures[i] = pipeline.doInOrderAsync(() -> n * 31L, sink::addAndGet, e -> e.printStackTrace());
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
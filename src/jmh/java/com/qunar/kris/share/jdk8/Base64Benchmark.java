@@ -0,0 +1,121 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整块数组编解码与流式channel编解码的对比，size为输入大小（KB），1K到1G。
+ * channel版本的数据源和目的地都不占内存，用 -prof gc 可以看到分配量不随size增长；
+ * 数组版本在1G时需要足够的堆
+ *
+ * @author gongzuo.zy
+ * @version $Id: Base64Benchmark.java, v0.1 2026-10-18 17:45  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Thread)
+public class Base64Benchmark {
+
+    @Param({"1", "1024", "65536", "1048576"})
+    int size;
+
+    byte[] data;
+
+    byte[] encoded;
+
+    Base64Channels channels;
+
+    @Setup
+    public void setup() {
+        data = new byte[size << 10];
+        new Random(42).nextBytes(data);
+        encoded = Base64.getEncoder().encode(data);
+        channels = new Base64Channels(Base64Channels.Variant.BASIC);
+    }
+
+    @Benchmark
+    public byte[] encodeArray() {
+        return Base64.getEncoder().encode(data);
+    }
+
+    @Benchmark
+    public long encodeChannel() throws IOException {
+        return channels.encode(new ArrayChannel(data), new NullChannel());
+    }
+
+    @Benchmark
+    public byte[] decodeArray() {
+        return Base64.getDecoder().decode(encoded);
+    }
+
+    @Benchmark
+    public long decodeChannel() throws IOException {
+        return channels.decode(new ArrayChannel(encoded), new NullChannel());
+    }
+
+    // 从已有数组读，模拟文件或socket
+    static class ArrayChannel implements ReadableByteChannel {
+
+        private final byte[] source;
+
+        private int position;
+
+        ArrayChannel(byte[] source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (position >= source.length) {
+                return -1;
+            }
+            int n = Math.min(dst.remaining(), source.length - position);
+            dst.put(source, position, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // 丢弃所有写入
+    static class NullChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
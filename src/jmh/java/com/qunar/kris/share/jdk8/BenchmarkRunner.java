@@ -0,0 +1,71 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口，结果统一输出为json，方便在jdk升级前后做对比
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar [-i 正则] [-s 100,10000] [-t 1,4] [-o result.json] [-prof gc]
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: BenchmarkRunner.java, v0.1 2026-10-18 10:12  gongzuo.zy Exp $
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = ".*Benchmark.*";
+        String[] sizes = null;
+        String[] threads = {"1"};
+        String output = "jmh-result.json";
+        String profiler = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-i":
+                    include = args[i + 1];
+                    break;
+                case "-s":
+                    sizes = args[i + 1].split(",");
+                    break;
+                case "-t":
+                    threads = args[i + 1].split(",");
+                    break;
+                case "-o":
+                    output = args[i + 1];
+                    break;
+                case "-prof":
+                    profiler = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        // 每一种线程数单独跑一轮，结果文件加上线程数后缀
+        for (String thread : threads) {
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(thread))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(threads.length == 1 ? output : output.replace(".json", "-t" + thread + ".json"));
+            if (sizes != null) {
+                builder.param("size", sizes);
+            }
+            // gc profiler会输出gc.alloc.rate.norm，即每次操作分配的字节数
+            if (profiler != null) {
+                builder.addProfiler(profiler);
+            }
+            new Runner(builder.build()).run();
+        }
+    }
+}
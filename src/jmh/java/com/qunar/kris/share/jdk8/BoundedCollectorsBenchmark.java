@@ -0,0 +1,91 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * sorted().limit(k)与topK、distinct().count()与approxDistinctCount的对比，使用 -prof gc 查看分配量
+ *
+ * @author gongzuo.zy
+ * @version $Id: BoundedCollectorsBenchmark.java, v0.1 2026-10-18 23:00  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class BoundedCollectorsBenchmark {
+
+    @Param({"10000", "1000000"})
+    int size;
+
+    @Param({"10"})
+    int k;
+
+    List<String> words;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        words = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // 大约一半的元素是重复的
+            words.add(Integer.toHexString(random.nextInt(size)));
+        }
+    }
+
+    // ---------- top k ----------
+
+    @Benchmark
+    public List<String> sortedLimit() {
+        return words.stream().sorted().limit(k).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> topK() {
+        return words.stream().collect(BoundedCollectors.topK(k, Comparator.naturalOrder()));
+    }
+
+    @Benchmark
+    public List<String> sortedLimitParallel() {
+        return words.parallelStream().sorted().limit(k).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> topKParallel() {
+        return words.parallelStream().collect(BoundedCollectors.topK(k, Comparator.naturalOrder()));
+    }
+
+    // ---------- distinct count ----------
+
+    @Benchmark
+    public long distinctCount() {
+        return words.stream().distinct().count();
+    }
+
+    @Benchmark
+    public long approxDistinctCount() {
+        return words.stream().collect(BoundedCollectors.approxDistinctCount());
+    }
+
+    @Benchmark
+    public long distinctCountParallel() {
+        return words.parallelStream().distinct().count();
+    }
+
+    @Benchmark
+    public long approxDistinctCountParallel() {
+        return words.parallelStream().collect(BoundedCollectors.approxDistinctCount());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 系统时钟和CachedClock取时间的耗时（ns/op）。
+ * 精度：accuracy每次比较缓存的millis和System.currentTimeMillis，TearDown打印平均、最大落后毫秒数
+ *
+ * @author gongzuo.zy
+ * @version $Id: CachedClockBenchmark.java, v0.1 2026-10-19 05:00  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CachedClockBenchmark {
+
+    Clock system;
+
+    Clock systemZone;
+
+    CachedClock cached;
+
+    @Setup
+    public void setup() {
+        system = Clock.systemUTC();
+        systemZone = Clock.system(ZoneId.of("Asia/Shanghai"));
+        cached = CachedClock.shared().withZone(ZoneId.of("Asia/Shanghai"));
+    }
+
+    @State(Scope.Thread)
+    public static class Lag {
+
+        long samples;
+
+        long total;
+
+        long max;
+
+        @TearDown
+        public void print() {
+            System.out.printf("%nlag avg=%.3fms max=%dms samples=%d%n", samples == 0 ? 0 : (double) total / samples, max, samples);
+        }
+    }
+
+    @Benchmark
+    public long systemMillis() {
+        return system.millis();
+    }
+
+    @Benchmark
+    public long cachedMillis() {
+        return cached.millis();
+    }
+
+    @Benchmark
+    public Instant systemInstant() {
+        return system.instant();
+    }
+
+    @Benchmark
+    public Instant cachedInstant() {
+        return cached.instant();
+    }
+
+    @Benchmark
+    public LocalDate systemToday() {
+        return LocalDate.now(systemZone);
+    }
+
+    @Benchmark
+    public LocalDate cachedToday() {
+        return cached.today();
+    }
+
+    @Benchmark
+    public LocalDateTime systemDateTime() {
+        return LocalDateTime.now(systemZone);
+    }
+
+    @Benchmark
+    public LocalDateTime cachedDateTime() {
+        return LocalDateTime.now(cached);
+    }
+
+    @Benchmark
+    public long accuracy(Lag lag) {
+        long cachedMillis = cached.millis();
+        long delta = System.currentTimeMillis() - cachedMillis;
+        lag.samples++;
+        lag.total += delta;
+        lag.max = Math.max(lag.max, delta);
+        return delta;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 隔离效果：后台不停地跑一个重的并行报表，测量轻量并行流和supplyAsync任务的延迟分布。
+ * shared时两者都在commonPool里，轻任务要排在报表的子任务后面；
+ * isolated时报表在自己的pool里，轻任务的延迟应当接近没有报表时（none）
+ *
+ * @author gongzuo.zy
+ * @version $Id: ForkJoinPoolRegistryBenchmark.java, v0.1 2026-10-19 01:30  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForkJoinPoolRegistryBenchmark {
+
+    @Param({"none", "shared", "isolated"})
+    String mode;
+
+    // 报表的规模
+    @Param({"20000000"})
+    int heavySize;
+
+    ForkJoinPoolRegistry registry;
+
+    Thread heavy;
+
+    volatile boolean running;
+
+    @Setup
+    public void setup() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        registry = new ForkJoinPoolRegistry();
+        registry.register("report", cores);
+        registry.register("light", cores);
+        if ("none".equals(mode)) {
+            return;
+        }
+        running = true;
+        heavy = new Thread(() -> {
+            while (running) {
+                if ("shared".equals(mode)) {
+                    report(heavySize);
+                } else {
+                    registry.run("report", () -> report(heavySize));
+                }
+            }
+        }, "heavy-report");
+        heavy.setDaemon(true);
+        heavy.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        running = false;
+        if (heavy != null) {
+            heavy.join();
+        }
+        System.out.println();
+        registry.stats().values().forEach(System.out::println);
+        registry.close();
+    }
+
+    private static long report(int size) {
+        return LongStream.range(0, size).parallel().map(i -> i * 31 ^ (i >>> 3)).sum();
+    }
+
+    // 调用线程自己也会参与执行并行流，所以共用commonPool时受的影响小一些
+    @Benchmark
+    public long lightStream() {
+        if ("isolated".equals(mode)) {
+            return registry.run("light", () -> report(10000));
+        }
+        return report(10000);
+    }
+
+    // 默认的supplyAsync只能等commonPool的线程空出来
+    @Benchmark
+    public long lightAsync() {
+        if ("isolated".equals(mode)) {
+            return CompletableFuture.supplyAsync(() -> report(10000), registry.pool("light")).join();
+        }
+        return CompletableFuture.supplyAsync(() -> report(10000)).join();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 深度2到32的函数链：装箱的Function.andThen、IntUnaryOperator.andThen、数组循环调用和FusedOperators。
+ * 每一级都是不同的lambda类，和真实代码里拼出来的链一样；
+ * affine是全部由加法、乘法组成的链，融合后只剩一次乘加。
+ * xxxShapes同时建SHAPES条不同的链，在同一个调用点轮流调用；sharedHandle是所有链共用一个类、
+ * 句柄放在实例字段里的写法，对比FusedOperators每条链生成一个类、句柄是static final常量的效果
+ *
+ * @author gongzuo.zy
+ * @version $Id: FusedOperatorsBenchmark.java, v0.1 2026-10-19 03:00  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FusedOperatorsBenchmark {
+
+    private static final IntUnaryOperator[] STAGES = {
+            x -> x + 1, x -> x * 3, x -> x ^ 0x5bd1e995, x -> x >>> 1,
+            x -> x - 7, x -> x * 5, x -> x ^ 0x27d4eb2d, x -> x << 1,
+            x -> x + 11, x -> x * 7, x -> x ^ 0x165667b1, x -> x >> 2,
+            x -> x - 13, x -> x * 9, x -> x ^ 0x61c88647, x -> Integer.rotateLeft(x, 3),
+            x -> x + 17, x -> x * 11, x -> x ^ 0x7feb352d, x -> x >>> 3,
+            x -> x - 19, x -> x * 13, x -> x ^ 0x846ca68b, x -> Integer.rotateRight(x, 5),
+            x -> x + 23, x -> x * 15, x -> x ^ 0x9e3779b9, x -> x | 1,
+            x -> x - 29, x -> x * 17, x -> x ^ 0x85ebca6b, x -> x & 0x7fffffff,
+    };
+
+    private static final int SHAPES = 4;
+
+    private static final MethodHandle APPLY;
+
+    static {
+        try {
+            APPLY = MethodHandles.lookup().findVirtual(IntUnaryOperator.class, "applyAsInt",
+                    MethodType.methodType(int.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"2", "4", "8", "16", "32"})
+    int depth;
+
+    int[] values;
+
+    Function<Integer, Integer> boxed;
+
+    IntUnaryOperator andThen;
+
+    IntUnaryOperator[] stages;
+
+    IntUnaryOperator fused;
+
+    IntUnaryOperator affineAndThen;
+
+    IntUnaryOperator affineFused;
+
+    IntUnaryOperator[] andThenShapes;
+
+    IntUnaryOperator[] sharedHandleShapes;
+
+    IntUnaryOperator[] fusedShapes;
+
+    @Setup
+    public void setup() {
+        values = new Random(42).ints(1024).toArray();
+        stages = new IntUnaryOperator[depth];
+        System.arraycopy(STAGES, 0, stages, 0, depth);
+
+        boxed = stages[0]::applyAsInt;
+        andThen = stages[0];
+        FusedOperators.IntChain chain = FusedOperators.intChain().then(stages[0]);
+        for (int i = 1; i < depth; i++) {
+            IntUnaryOperator stage = stages[i];
+            boxed = boxed.andThen(stage::applyAsInt);
+            andThen = andThen.andThen(stage);
+            chain.then(stage);
+        }
+        fused = chain.build();
+
+        affineAndThen = IntUnaryOperator.identity();
+        FusedOperators.IntChain affine = FusedOperators.intChain();
+        for (int i = 0; i < depth; i++) {
+            int c = 2 * i + 1;
+            affineAndThen = i % 2 == 0 ? affineAndThen.andThen(x -> x + c) : affineAndThen.andThen(x -> x * c);
+            if (i % 2 == 0) {
+                affine.add(c);
+            } else {
+                affine.multiply(c);
+            }
+        }
+        affineFused = affine.build();
+
+        andThenShapes = new IntUnaryOperator[SHAPES];
+        sharedHandleShapes = new IntUnaryOperator[SHAPES];
+        fusedShapes = new IntUnaryOperator[SHAPES];
+        for (int shape = 0; shape < SHAPES; shape++) {
+            IntUnaryOperator first = STAGES[shape * 7 % STAGES.length];
+            IntUnaryOperator composed = first;
+            MethodHandle handle = APPLY.bindTo(first);
+            FusedOperators.IntChain shapeChain = FusedOperators.intChain().then(first);
+            for (int i = 1; i < depth; i++) {
+                IntUnaryOperator stage = STAGES[(shape * 7 + i) % STAGES.length];
+                composed = composed.andThen(stage);
+                handle = MethodHandles.filterReturnValue(handle, APPLY.bindTo(stage));
+                shapeChain.then(stage);
+            }
+            andThenShapes[shape] = composed;
+            sharedHandleShapes[shape] = new SharedHandle(handle);
+            fusedShapes[shape] = shapeChain.build();
+            for (int value : values) {
+                int expected = composed.applyAsInt(value);
+                if (sharedHandleShapes[shape].applyAsInt(value) != expected
+                        || fusedShapes[shape].applyAsInt(value) != expected) {
+                    throw new IllegalStateException("shape " + shape + " disagrees at " + value);
+                }
+            }
+        }
+
+        for (int value : values) {
+            int expected = andThen.applyAsInt(value);
+            if (boxed.apply(value) != expected || fused.applyAsInt(value) != expected || loop(value) != expected
+                    || affineAndThen.applyAsInt(value) != affineFused.applyAsInt(value)) {
+                throw new IllegalStateException("chains disagree at " + value);
+            }
+        }
+    }
+
+    private int loop(int value) {
+        for (IntUnaryOperator stage : stages) {
+            value = stage.applyAsInt(value);
+        }
+        return value;
+    }
+
+    private static long sum(int[] values, IntUnaryOperator[] shapes) {
+        long sum = 0;
+        for (int value : values) {
+            for (IntUnaryOperator shape : shapes) {
+                sum += shape.applyAsInt(value);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long boxedAndThen() {
+        long sum = 0;
+        for (int value : values) {
+            sum += boxed.apply(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long primitiveAndThen() {
+        long sum = 0;
+        for (int value : values) {
+            sum += andThen.applyAsInt(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long arrayLoop() {
+        long sum = 0;
+        for (int value : values) {
+            sum += loop(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long fused() {
+        long sum = 0;
+        for (int value : values) {
+            sum += fused.applyAsInt(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long affineAndThen() {
+        long sum = 0;
+        for (int value : values) {
+            sum += affineAndThen.applyAsInt(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long affineFused() {
+        long sum = 0;
+        for (int value : values) {
+            sum += affineFused.applyAsInt(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long andThenShapes() {
+        return sum(values, andThenShapes);
+    }
+
+    @Benchmark
+    public long sharedHandleShapes() {
+        return sum(values, sharedHandleShapes);
+    }
+
+    @Benchmark
+    public long fusedShapes() {
+        return sum(values, fusedShapes);
+    }
+
+    /**
+     * 改成每条链一个类之前FusedOperators的写法：所有链共用这个类，invokeExact的句柄不是常量
+     */
+    private static final class SharedHandle implements IntUnaryOperator {
+
+        private final MethodHandle chain;
+
+        SharedHandle(MethodHandle chain) {
+            this.chain = chain;
+        }
+
+        @Override
+        public int applyAsInt(int operand) {
+            try {
+                return (int) chain.invokeExact(operand);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+}
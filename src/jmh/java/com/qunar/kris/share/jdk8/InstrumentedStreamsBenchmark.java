@@ -0,0 +1,72 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * InstrumentedStreams的开销：直接使用stream、关闭统计时经过of、打开统计，三者对比。
+ * 关闭时应当与直接使用没有差别
+ *
+ * @author gongzuo.zy
+ * @version $Id: InstrumentedStreamsBenchmark.java, v0.1 2026-10-18 23:50  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentedStreamsBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    List<String> words;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        words = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            words.add(Integer.toHexString(random.nextInt()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        InstrumentedStreams.setEnabled(false);
+        InstrumentedStreams.reset();
+    }
+
+    // trasformer里的几个操作串起来
+    private static List<String> pipeline(Stream<String> stream) {
+        return stream.filter(p -> p.contains("b")).map(String::toUpperCase).sorted().limit(10).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> plain() {
+        return pipeline(words.stream());
+    }
+
+    @Benchmark
+    public List<String> disabled() {
+        InstrumentedStreams.setEnabled(false);
+        return pipeline(InstrumentedStreams.of("benchmark", words.stream()));
+    }
+
+    @Benchmark
+    public List<String> enabled() {
+        InstrumentedStreams.setEnabled(true);
+        return pipeline(InstrumentedStreams.of("benchmark", words.stream()));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import com.google.common.primitives.Ints;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * LambdaStudy中的写法与jdk8之前写法的对比
+ *
+ * @author gongzuo.zy
+ * @version $Id: LambdaStudyBenchmark.java, v0.1 2026-10-18 10:20  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LambdaStudyBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    List<String> names;
+
+    int[] numbers;
+
+    List<Integer> boxed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        names = new ArrayList<>(size);
+        numbers = new int[size];
+        for (int i = 0; i < size; i++) {
+            names.add(Integer.toHexString(random.nextInt()));
+            numbers[i] = random.nextInt(1000);
+        }
+        boxed = Ints.asList(numbers);
+    }
+
+    // 匿名类Comparator
+    @Benchmark
+    public List<String> sortAnonymous() {
+        List<String> copy = new ArrayList<>(names);
+        Collections.sort(copy, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return b.compareTo(a);
+            }
+        });
+        return copy;
+    }
+
+    // lambda Comparator
+    @Benchmark
+    public List<String> sortLambda() {
+        List<String> copy = new ArrayList<>(names);
+        Collections.sort(copy, (a, b) -> b.compareTo(a));
+        return copy;
+    }
+
+    // 传统for循环求和
+    @Benchmark
+    public int sumLoop() {
+        int sum = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            sum += numbers[i];
+        }
+        return sum;
+    }
+
+    // 自定义加法器，方法引用
+    @Benchmark
+    public Integer sumAdderHelper() {
+        return LambdaStudy.AdderHelper.addList(boxed, LambdaStudy.AdderHelper::add);
+    }
+
+    @Benchmark
+    public int sumIntStream() {
+        return IntStream.of(numbers).sum();
+    }
+
+    @Benchmark
+    public int sumParallelIntStream() {
+        return IntStream.of(numbers).parallel().sum();
+    }
+
+    // 构造方法引用 vs 直接new
+    @Benchmark
+    public void personNew(Blackhole bh) {
+        for (int i = 0; i < size; i++) {
+            bh.consume(new LambdaStudy.Person("Peter", "Parker"));
+        }
+    }
+
+    @Benchmark
+    public void personFactory(Blackhole bh) {
+        LambdaStudy.PersonFactory<LambdaStudy.Person> factory = LambdaStudy.Person::new;
+        for (int i = 0; i < size; i++) {
+            bh.consume(factory.create("Peter", "Parker"));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Files.lines与内存映射并行扫描的对比，size为文件大小（MB），命中的行放在文件末尾附近
+ *
+ * @author gongzuo.zy
+ * @version $Id: MappedLineScannerBenchmark.java, v0.1 2026-10-18 16:05  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedLineScannerBenchmark {
+
+    @Param({"16", "256"})
+    int size;
+
+    Path file;
+
+    MappedLineScanner scanner;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("scanner", ".log");
+        Random random = new Random(42);
+        long bytes = (long) size << 20;
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder();
+            while (written < bytes) {
+                line.setLength(0);
+                int length = 20 + random.nextInt(100);
+                for (int i = 0; i < length; i++) {
+                    line.append((char) ('a' + random.nextInt(26)));
+                }
+                if (written > bytes * 9 / 10 && random.nextInt(1000) == 0) {
+                    line.append(" password=secret");
+                }
+                writer.write(line.toString());
+                writer.newLine();
+                written += line.length() + 1;
+            }
+        }
+        scanner = new MappedLineScanner(file, 4 << 20);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Optional<String> filesLinesFindFirst() throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            return lines.filter(s -> s.contains("password")).findFirst();
+        }
+    }
+
+    @Benchmark
+    public Optional<String> mappedFindFirst() throws IOException {
+        return scanner.findFirst("password");
+    }
+
+    @Benchmark
+    public long filesLinesCount() throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            return lines.filter(s -> s.contains("password")).count();
+        }
+    }
+
+    @Benchmark
+    public long mappedFindAllCount() throws IOException {
+        try (Stream<String> lines = scanner.findAll("password")) {
+            return lines.count();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 多线程、Zipf分布的key下，缓存后的函数（W-TinyLFU/LRU）与直接计算、同步的LinkedHashMap LRU的吞吐对比。
+ * keys个不同的key里第k热的出现概率正比于1/k^skew，缓存只放得下maximumSize个；
+ * TearDown时打印命中率和淘汰次数。direct和synchronizedLru与policy无关
+ *
+ * @author gongzuo.zy
+ * @version $Id: MemoizerBenchmark.java, v0.1 2026-10-19 04:00  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MemoizerBenchmark {
+
+    @Param({"100000"})
+    int keys;
+
+    @Param({"1000"})
+    int maximumSize;
+
+    @Param({"0.8", "1.2"})
+    double skew;
+
+    @Param({"TINY_LFU", "LRU"})
+    Memoizer.Policy policy;
+
+    // 预先按Zipf分布抽好的key序列，每个线程从不同的位置开始读
+    String[] samples;
+
+    Function<String, String> memoized;
+
+    Map<String, String> lru;
+
+    @Setup
+    public void setup() {
+        String[] names = new String[keys];
+        double[] cdf = new double[keys];
+        double total = 0;
+        for (int i = 0; i < keys; i++) {
+            names[i] = "key-" + i;
+            total += 1 / Math.pow(i + 1, skew);
+            cdf[i] = total;
+        }
+        Random random = new Random(42);
+        samples = new String[1 << 20];
+        for (int i = 0; i < samples.length; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * total);
+            samples[i] = names[Math.min(index < 0 ? -index - 1 : index, keys - 1)];
+        }
+        memoized = Memoizer.builder().maximumSize(maximumSize).policy(policy)
+                .function(MemoizerBenchmark::expensive);
+        lru = Collections.synchronizedMap(new LruMap(maximumSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println();
+        System.out.println(((Memoizer.MemoizedFunction<String, String>) memoized).stats());
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next = new Random().nextInt(1 << 20);
+
+        String key(String[] samples) {
+            next = (next + 1) & (samples.length - 1);
+            return samples[next];
+        }
+    }
+
+    // 模拟一次需要几微秒的查询
+    static String expensive(String key) {
+        String value = ProgramLambdaStudy.returnFunction().apply(key);
+        long h = value.hashCode();
+        for (int i = 0; i < 1000; i++) {
+            h = h * 0x9e3779b97f4a7c15L + i;
+        }
+        return value + (h & 0xff);
+    }
+
+    @Benchmark
+    public String direct(Cursor cursor) {
+        return expensive(cursor.key(samples));
+    }
+
+    @Benchmark
+    public String memoized(Cursor cursor) {
+        return memoized.apply(cursor.key(samples));
+    }
+
+    @Benchmark
+    public String synchronizedLru(Cursor cursor) {
+        String key = cursor.key(samples);
+        String value = lru.get(key);
+        if (value == null) {
+            value = expensive(key);
+            lru.put(key, value);
+        }
+        return value;
+    }
+
+    // accessOrder=true 即LRU
+    static final class LruMap extends LinkedHashMap<String, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Memoizer容量边界的检查，改了淘汰逻辑之后跑一遍，不符合时以非0退出。
+ * maximumSize(0)在两种策略下都不能留下任何key：每次调用都重新计算，size一直是0，每次计算都记一次淘汰；
+ * maximumSize(n)时缓存的key数不超过n
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar com.qunar.kris.share.jdk8.MemoizerCheck
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: MemoizerCheck.java, v0.1 2026-10-19 21:00  gongzuo.zy Exp $
+ */
+public class MemoizerCheck {
+
+    private static final int CALLS = 1000;
+
+    // 只有这么多个不同的key，容量足够时大部分调用应该命中
+    private static final int KEYS = 10;
+
+    public static void main(String[] args) {
+        List<String> failures = new ArrayList<>();
+        for (Memoizer.Policy policy : Memoizer.Policy.values()) {
+            for (long maximumSize : new long[]{0, 1, 5, 100}) {
+                String failure = check(policy, maximumSize);
+                if (failure != null) {
+                    failures.add(failure);
+                }
+            }
+        }
+        failures.forEach(System.out::println);
+        System.out.println("failures=" + failures.size());
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /*
+     * 返回不符合的说明，符合返回null
+     */
+    private static String check(Memoizer.Policy policy, long maximumSize) {
+        Memoizer.MemoizedFunction<Integer, Integer> function = Memoizer.builder().maximumSize(maximumSize)
+                .policy(policy).function(Function.<Integer>identity());
+        for (int i = 0; i < CALLS; i++) {
+            int key = i % KEYS;
+            if (function.apply(key) != key) {
+                return policy + " maximumSize=" + maximumSize + " wrong value for " + key;
+            }
+            if (function.size() > maximumSize) {
+                return policy + " maximumSize=" + maximumSize + " size=" + function.size() + " after " + (i + 1) + " calls";
+            }
+        }
+        Memoizer.Stats stats = function.stats();
+        if (maximumSize == 0 && (stats.getHits() != 0 || stats.getLoads() != CALLS || stats.getEvictions() != CALLS)) {
+            return policy + " maximumSize=0 kept keys: " + stats;
+        }
+        if (maximumSize >= KEYS && stats.getLoads() != KEYS) {
+            return policy + " maximumSize=" + maximumSize + " reloaded cached keys: " + stats;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * 反射调用的几种方式：每次Class.forName+getMethod+invoke、缓存Method、缓存MethodHandle、LambdaMetafactory生成的lambda
+ *
+ * @author gongzuo.zy
+ * @version $Id: MethodInvokersBenchmark.java, v0.1 2026-10-18 18:50  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MethodInvokersBenchmark {
+
+    // 插件的入口方法
+    public static class Plugin {
+        public static int handle(String request) {
+            return request.length();
+        }
+    }
+
+    String request = "request";
+
+    Method method;
+
+    MethodInvokers.Invoker invoker;
+
+    ToIntFunction<String> lambda;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        method = Plugin.class.getMethod("handle", String.class);
+        invoker = MethodInvokers.invoker(getClass().getClassLoader(), Plugin.class.getName(), "handle", String.class);
+        lambda = MethodInvokers.lambda(MethodHandles.lookup(), ToIntFunction.class, Plugin.class, "handle", String.class);
+    }
+
+    @Benchmark
+    public int direct() {
+        return Plugin.handle(request);
+    }
+
+    // MiscellaneousStudy中的写法
+    @Benchmark
+    public Object lookupAndInvoke() throws ReflectiveOperationException {
+        return Class.forName(Plugin.class.getName()).getMethod("handle", String.class).invoke(null, request);
+    }
+
+    @Benchmark
+    public Object cachedMethodInvoke() throws ReflectiveOperationException {
+        return method.invoke(null, request);
+    }
+
+    @Benchmark
+    public Object cachedMethodHandle() throws Throwable {
+        return invoker.invoke(null, request);
+    }
+
+    // 每次都走缓存查找
+    @Benchmark
+    public Object methodHandleLookup() throws Throwable {
+        return MethodInvokers.invoker(getClass().getClassLoader(), Plugin.class.getName(), "handle", String.class)
+                .invoke(null, request);
+    }
+
+    @Benchmark
+    public int generatedLambda() {
+        return lambda.applyAsInt(request);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * jdk自带的数据源与ParallelSources在1到N个线程下的并行加速比。
+ * 并行流在哪个ForkJoinPool里调用终结操作，就用哪个pool执行，所以用不同parallelism的pool代替公共pool。
+ * 对比同一个数据源在parallelism=1和N时的耗时即可
+ *
+ * @author gongzuo.zy
+ * @version $Id: ParallelSourcesBenchmark.java, v0.1 2026-10-19 00:40  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelSourcesBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    ForkJoinPool pool;
+
+    Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        pool = new ForkJoinPool(parallelism);
+        file = Files.createTempFile("parallel-sources", ".txt");
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(Integer.toHexString(random.nextInt()) + " password=" + Long.toHexString(random.nextLong()));
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    private <T> T inPool(java.util.concurrent.Callable<T> task) throws ExecutionException, InterruptedException {
+        return pool.submit(task).get();
+    }
+
+    // 每个元素做一点计算，模拟创建Person
+    private static long work(Object o) {
+        String s = o.toString();
+        long h = 0;
+        for (int i = 0; i < 8; i++) {
+            h = h * 31 + s.hashCode() + i;
+        }
+        return h;
+    }
+
+    // ---------- 生成器 ----------
+
+    @Benchmark
+    public long generateLimit() throws Exception {
+        return inPool(() -> Stream.generate(Object::new).limit(size).parallel().mapToLong(ParallelSourcesBenchmark::work).sum());
+    }
+
+    @Benchmark
+    public long generateIndexed() throws Exception {
+        return inPool(() -> ParallelSources.generate(size, Object::new).parallel().mapToLong(ParallelSourcesBenchmark::work).sum());
+    }
+
+    // ---------- 文件 ----------
+
+    @Benchmark
+    public long filesLines() throws Exception {
+        return inPool(() -> {
+            try (Stream<String> lines = Files.lines(file)) {
+                return lines.parallel().filter(s -> s.contains("password=a")).mapToLong(ParallelSourcesBenchmark::work).sum();
+            }
+        });
+    }
+
+    @Benchmark
+    public long mappedLines() throws Exception {
+        return inPool(() -> {
+            try (Stream<String> lines = ParallelSources.lines(file)) {
+                return lines.parallel().filter(s -> s.contains("password=a")).mapToLong(ParallelSourcesBenchmark::work).sum();
+            }
+        });
+    }
+
+    // ---------- 迭代器 ----------
+
+    private Iterator<Integer> iterator() {
+        return IntStream.range(0, size).iterator();
+    }
+
+    @Benchmark
+    public long iteratorUnknownSize() throws Exception {
+        return inPool(() -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), true)
+                .mapToLong(ParallelSourcesBenchmark::work).sum());
+    }
+
+    @Benchmark
+    public long iteratorBatched() throws Exception {
+        return inPool(() -> ParallelSources.batched(iterator(), 4096).parallel().mapToLong(ParallelSourcesBenchmark::work).sum());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录转换路径上的gc压力：每条记录创建一个Person，交给下游（Blackhole，避免逃逸分析把分配消掉）后丢弃。
+ * 需要加 -prof gc 运行，看gc.alloc.rate.norm（每次调用分配的字节数）和gc.count：
+ * <ul>
+ *     <li>newPerson / pooled / flyweight：名字已经是String，比较Person对象本身的分配</li>
+ *     <li>parseNew / parseInterned：名字从char[]里解析，比较String的分配，名字重复度由distinct控制</li>
+ * </ul>
+ *
+ * @author gongzuo.zy
+ * @version $Id: PersonFactoriesBenchmark.java, v0.1 2026-10-19 03:30  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx512m"})
+@State(Scope.Thread)
+public class PersonFactoriesBenchmark {
+
+    @Param({"10000"})
+    int size;
+
+    // 不同名字的个数
+    @Param({"100"})
+    int distinct;
+
+    String[] firstNames;
+
+    String[] lastNames;
+
+    // 解析用的原始数据：所有名字连在一起，offsets/lengths标出每个名字
+    char[] raw;
+
+    int[] offsets;
+
+    int[] lengths;
+
+    LambdaStudy.PersonFactory<LambdaStudy.Person> factory;
+
+    PersonFactories.Pool pool;
+
+    PersonFactories.PersonBuffer buffer;
+
+    PersonFactories.ViewFactory flyweight;
+
+    PersonFactories.Interner interner;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        String[] names = new String[distinct];
+        for (int i = 0; i < distinct; i++) {
+            names[i] = "name-" + Integer.toHexString(random.nextInt());
+        }
+        firstNames = new String[size];
+        lastNames = new String[size];
+        StringBuilder builder = new StringBuilder();
+        offsets = new int[size * 2];
+        lengths = new int[size * 2];
+        for (int i = 0; i < size; i++) {
+            // 每条记录都是新的String，和从外部读进来的一样
+            firstNames[i] = new String(names[random.nextInt(distinct)]);
+            lastNames[i] = new String(names[random.nextInt(distinct)]);
+            offsets[2 * i] = builder.length();
+            lengths[2 * i] = firstNames[i].length();
+            builder.append(firstNames[i]);
+            offsets[2 * i + 1] = builder.length();
+            lengths[2 * i + 1] = lastNames[i].length();
+            builder.append(lastNames[i]);
+        }
+        raw = builder.toString().toCharArray();
+
+        factory = LambdaStudy.Person::new;
+        pool = PersonFactories.pooled(16);
+        buffer = PersonFactories.buffer(size);
+        flyweight = buffer.factory();
+        interner = new PersonFactories.Interner(distinct * 4);
+    }
+
+    @Benchmark
+    public long newPerson(Blackhole bh) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            LambdaStudy.Person person = factory.create(firstNames[i], lastNames[i]);
+            bh.consume(person);
+            sum += person.getFirstName().length() + person.getLastName().hashCode();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long pooled(Blackhole bh) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            LambdaStudy.Person person = pool.create(firstNames[i], lastNames[i]);
+            bh.consume(person);
+            sum += person.getFirstName().length() + person.getLastName().hashCode();
+            pool.release(person);
+        }
+        return sum;
+    }
+
+    // 视图上用CharSequence访问名字，整批处理完再clear
+    @Benchmark
+    public long flyweight(Blackhole bh) {
+        long sum = 0;
+        buffer.clear();
+        for (int i = 0; i < size; i++) {
+            PersonFactories.PersonView person = flyweight.create(firstNames[i], lastNames[i]);
+            bh.consume(person);
+            CharSequence lastName = person.lastName();
+            sum += person.firstName().length() + lastName.charAt(lastName.length() - 1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parseNew(Blackhole bh) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            LambdaStudy.Person person = factory.create(new String(raw, offsets[2 * i], lengths[2 * i]),
+                    new String(raw, offsets[2 * i + 1], lengths[2 * i + 1]));
+            bh.consume(person);
+            sum += person.getFirstName().length() + person.getLastName().hashCode();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parseInterned(Blackhole bh) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            LambdaStudy.Person person = pool.create(interner.intern(raw, offsets[2 * i], lengths[2 * i]),
+                    interner.intern(raw, offsets[2 * i + 1], lengths[2 * i + 1]));
+            bh.consume(person);
+            sum += person.getFirstName().length() + person.getLastName().hashCode();
+            pool.release(person);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.partitioningBy;
+
+/**
+ * List&lt;Person&gt; + stream 与列存PersonTable的查询耗时对比；
+ * 启动时会打印两种表示各自占用的堆内/堆外字节数
+ *
+ * @author gongzuo.zy
+ * @version $Id: PersonTableBenchmark.java, v0.1 2026-10-18 21:20  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Benchmark)
+public class PersonTableBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    List<StreamStudy.Person> peoples;
+
+    PersonTable table;
+
+    @Setup
+    public void setup() {
+        long base = usedBytes();
+        peoples = generate(size);
+        long listBytes = usedBytes() - base;
+
+        base = usedBytes();
+        PersonTable.Builder builder = PersonTable.builder();
+        for (StreamStudy.Person person : generate(size)) {
+            builder.add(person);
+        }
+        table = builder.build();
+        long tableBytes = usedBytes() - base;
+        System.out.printf("%nfootprint size=%d list=%,d bytes table=%,d bytes (heap + direct)%n", size, listBytes, tableBytes);
+    }
+
+    // 名字只有几千个取值，id唯一
+    private static List<StreamStudy.Person> generate(int size) {
+        Random random = new Random(42);
+        String[] firstNames = new String[2000];
+        String[] lastNames = new String[500];
+        for (int i = 0; i < firstNames.length; i++) {
+            firstNames[i] = "first" + Integer.toHexString(random.nextInt());
+        }
+        for (int i = 0; i < lastNames.length; i++) {
+            lastNames[i] = "last" + Integer.toHexString(random.nextInt());
+        }
+        List<StreamStudy.Person> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String first = firstNames[random.nextInt(firstNames.length)];
+            String last = lastNames[random.nextInt(lastNames.length)];
+            StreamStudy.Person person = new StreamStudy.Person(first, last);
+            // 模拟从数据源读出来，每个对象都有自己的字符串实例
+            person.setId(new StringBuilder().append(i).append('-').append(random.nextInt(1 << 20)).toString());
+            person.setName(new String(first + " " + last));
+            result.add(person);
+        }
+        return result;
+    }
+
+    private static long usedBytes() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        long heap = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            direct += pool.getMemoryUsed();
+        }
+        return heap + direct;
+    }
+
+    @Benchmark
+    public Map<String, String> toMapList() {
+        return peoples.stream().collect(Collectors.toMap(StreamStudy.Person::getId, StreamStudy.Person::getName));
+    }
+
+    @Benchmark
+    public Map<String, String> toMapTable() {
+        return table.toMap(PersonTable.Column.ID, PersonTable.Column.NAME);
+    }
+
+    @Benchmark
+    public Map<Boolean, List<StreamStudy.Person>> partitionList() {
+        return peoples.stream().collect(partitioningBy(e -> e.getId().length() > 10));
+    }
+
+    @Benchmark
+    public Map<Boolean, int[]> partitionTable() {
+        return table.partitionByLength(PersonTable.Column.ID, length -> length > 10);
+    }
+
+    @Benchmark
+    public Map<String, Long> groupCountList() {
+        return peoples.stream().collect(groupingBy(StreamStudy.Person::getLastName, counting()));
+    }
+
+    @Benchmark
+    public Map<String, Long> groupCountTable() {
+        return table.countBy(PersonTable.Column.LAST_NAME);
+    }
+
+    @Benchmark
+    public long filterList() {
+        return peoples.stream().filter(p -> p.getFirstName().endsWith("a")).count();
+    }
+
+    @Benchmark
+    public long filterTable() {
+        return table.filter(PersonTable.Column.FIRST_NAME, s -> s.endsWith("a")).count();
+    }
+}
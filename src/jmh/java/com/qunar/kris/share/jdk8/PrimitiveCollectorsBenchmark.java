@@ -0,0 +1,117 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summarizingLong;
+
+/**
+ * Collectors.groupingBy与PrimitiveCollectors的吞吐对比，使用 -prof gc 查看每次收集的分配量
+ *
+ * @author gongzuo.zy
+ * @version $Id: PrimitiveCollectorsBenchmark.java, v0.1 2026-10-18 22:10  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveCollectorsBenchmark {
+
+    @Param({"10000", "1000000"})
+    int size;
+
+    // 不同key的个数
+    @Param({"100", "10000"})
+    int groups;
+
+    List<StreamStudy.Person> peoples;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        peoples = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StreamStudy.Person person = new StreamStudy.Person("first" + random.nextInt(groups), "last" + random.nextInt(groups));
+            // id是key，name的长度是统计的值
+            person.setId(String.valueOf(random.nextInt(groups) * 7919L));
+            person.setName(Integer.toHexString(random.nextInt()));
+            peoples.add(person);
+        }
+    }
+
+    private static int intKey(StreamStudy.Person person) {
+        return person.getId().hashCode();
+    }
+
+    // ---------- int key ----------
+
+    @Benchmark
+    public Map<Integer, Long> intCountingCollectors() {
+        return peoples.stream().collect(groupingBy(PrimitiveCollectorsBenchmark::intKey, counting()));
+    }
+
+    @Benchmark
+    public PrimitiveCollectors.IntGroups intCountingPrimitive() {
+        return peoples.stream().collect(PrimitiveCollectors.groupingByInt(PrimitiveCollectorsBenchmark::intKey));
+    }
+
+    @Benchmark
+    public Map<Integer, LongSummaryStatistics> intSummarizingCollectors() {
+        return peoples.stream().collect(groupingBy(PrimitiveCollectorsBenchmark::intKey, summarizingLong(e -> e.getName().length())));
+    }
+
+    @Benchmark
+    public PrimitiveCollectors.IntGroups intSummarizingPrimitive() {
+        return peoples.stream().collect(PrimitiveCollectors.groupingByInt(PrimitiveCollectorsBenchmark::intKey, e -> e.getName().length()));
+    }
+
+    // ---------- long key ----------
+
+    @Benchmark
+    public Map<Long, LongSummaryStatistics> longSummarizingCollectors() {
+        return peoples.stream().collect(groupingBy(e -> (long) intKey(e) << 20, summarizingLong(e -> e.getName().length())));
+    }
+
+    @Benchmark
+    public PrimitiveCollectors.LongGroups longSummarizingPrimitive() {
+        return peoples.stream().collect(PrimitiveCollectors.groupingByLong(e -> (long) intKey(e) << 20, e -> e.getName().length()));
+    }
+
+    // ---------- String key ----------
+
+    @Benchmark
+    public Map<String, LongSummaryStatistics> stringSummarizingCollectors() {
+        return peoples.stream().collect(groupingBy(StreamStudy.Person::getLastName, summarizingLong(e -> e.getName().length())));
+    }
+
+    @Benchmark
+    public PrimitiveCollectors.StringGroups stringSummarizingPrimitive() {
+        return peoples.stream().collect(PrimitiveCollectors.groupingByString(StreamStudy.Person::getLastName, e -> e.getName().length()));
+    }
+
+    // ---------- parallelStream，每个线程各自收集再合并 ----------
+
+    @Benchmark
+    public Map<String, LongSummaryStatistics> stringSummarizingCollectorsParallel() {
+        return peoples.parallelStream().collect(groupingBy(StreamStudy.Person::getLastName, summarizingLong(e -> e.getName().length())));
+    }
+
+    @Benchmark
+    public PrimitiveCollectors.StringGroups stringSummarizingPrimitiveParallel() {
+        return peoples.parallelStream().collect(PrimitiveCollectors.groupingByString(StreamStudy.Person::getLastName, e -> e.getName().length()));
+    }
+}
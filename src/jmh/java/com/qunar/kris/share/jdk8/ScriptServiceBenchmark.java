@@ -0,0 +1,69 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回答JavascriptStudy里的问题：nashorn在并发下效率如何。
+ * 用 -t 1,2,4,8 运行可以看到不同线程数下冷启动eval与缓存编译脚本的差距
+ *
+ * @author gongzuo.zy
+ * @version $Id: ScriptServiceBenchmark.java, v0.1 2026-10-18 14:40  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScriptServiceBenchmark {
+
+    private static final String SCRIPT = "var s = 0; for (var i = 0; i < n; i++) { s += i * 2; } s";
+
+    // 脚本循环次数
+    @Param({"10"})
+    int size;
+
+    ScriptService service;
+
+    @Setup
+    public void setup() {
+        service = new ScriptService();
+    }
+
+    // JavascriptStudy.main的写法：每次新建manager和引擎并解析
+    @Benchmark
+    public Object coldEval() throws ScriptException {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+        engine.put("n", size);
+        return engine.eval(SCRIPT);
+    }
+
+    // 共享一个引擎，但每次重新解析，并发时靠锁串行
+    @Benchmark
+    public Object sharedEngineEval(SharedEngine shared) throws ScriptException {
+        synchronized (shared.engine) {
+            shared.engine.put("n", size);
+            return shared.engine.eval(SCRIPT);
+        }
+    }
+
+    @Benchmark
+    public Object cachedCompiledScript() throws ScriptException {
+        return service.eval(SCRIPT, Collections.singletonMap("n", size));
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedEngine {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 把size个元素交给消费者：先collect成List再逐个消费，和StreamPublisher按需拉取的对比（ms/op）。
+ * collect的峰值内存与size成正比；StreamPublisher只缓冲bufferSize个，用-prof gc看每次操作的分配
+ *
+ * @author gongzuo.zy
+ * @version $Id: StreamPublisherBenchmark.java, v0.1 2026-10-19 08:30  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamPublisherBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private Stream<Integer> source() {
+        return IntStream.range(0, size).boxed().filter(i -> (i & 3) != 0).map(i -> i * 2);
+    }
+
+    @Benchmark
+    public void collectThenConsume(Blackhole bh) {
+        List<Integer> all = source().collect(Collectors.toList());
+        all.forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void publisher(Blackhole bh) {
+        StreamPublisher.from(this::source).forEach(bh::consume).join();
+    }
+
+    @Benchmark
+    public void publisherStages(Blackhole bh) {
+        StreamPublisher.from(() -> IntStream.range(0, size).boxed())
+                .filter(i -> (i & 3) != 0)
+                .map(i -> i * 2)
+                .forEach(bh::consume).join();
+    }
+
+    @Benchmark
+    public void publisherBatchAsync(Blackhole bh) {
+        StreamPublisher.from(this::source).batch(256).async(executor, 16).forEach(bh::consume).join();
+    }
+
+    @Benchmark
+    public void publisherAsync(Blackhole bh) {
+        StreamPublisher.from(this::source).async(executor, Flow.defaultBufferSize()).forEach(bh::consume).join();
+    }
+}
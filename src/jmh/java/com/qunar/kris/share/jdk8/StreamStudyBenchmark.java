@@ -0,0 +1,321 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * StreamStudy中每一个Collectors用法与对应的for循环写法对比
+ *
+ * @author gongzuo.zy
+ * @version $Id: StreamStudyBenchmark.java, v0.1 2026-10-18 10:35  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamStudyBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    List<StreamStudy.Person> peoples;
+
+    List<Integer> numbers;
+
+    List<String> words;
+
+    List<Locale> locales;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Locale[] available = Locale.getAvailableLocales();
+        peoples = new ArrayList<>(size);
+        numbers = new ArrayList<>(size);
+        words = new ArrayList<>(size);
+        locales = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StreamStudy.Person person = new StreamStudy.Person();
+            person.setId(String.valueOf(i));
+            person.setName(Integer.toHexString(random.nextInt()));
+            peoples.add(person);
+            numbers.add(random.nextInt(size));
+            words.add(person.getName().substring(0, 1 + random.nextInt(person.getName().length())));
+            locales.add(available[random.nextInt(available.length)]);
+        }
+    }
+
+    // ---------- toList / toSet ----------
+
+    @Benchmark
+    public List<Integer> toListCollector() {
+        return numbers.stream().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> toListLoop() {
+        List<Integer> result = new ArrayList<>();
+        for (Integer number : numbers) {
+            result.add(number);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Set<Integer> toSetCollector() {
+        return numbers.stream().collect(toSet());
+    }
+
+    @Benchmark
+    public Set<Integer> toSetLoop() {
+        Set<Integer> result = new HashSet<>();
+        for (Integer number : numbers) {
+            result.add(number);
+        }
+        return result;
+    }
+
+    // ---------- toMap / toConcurrentMap ----------
+
+    @Benchmark
+    public Map<String, String> toMapCollector() {
+        return peoples.stream().collect(Collectors.toMap(StreamStudy.Person::getId, StreamStudy.Person::getName));
+    }
+
+    @Benchmark
+    public Map<String, String> toMapLoop() {
+        Map<String, String> result = new HashMap<>();
+        for (StreamStudy.Person person : peoples) {
+            if (result.put(person.getId(), person.getName()) != null) {
+                throw new IllegalStateException("Duplicate key " + person.getId());
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, String> toConcurrentMapCollector() {
+        return peoples.parallelStream().collect(Collectors.toConcurrentMap(StreamStudy.Person::getId, StreamStudy.Person::getName));
+    }
+
+    @Benchmark
+    public Map<String, String> toConcurrentMapLoop() {
+        Map<String, String> result = new ConcurrentHashMap<>();
+        for (StreamStudy.Person person : peoples) {
+            result.put(person.getId(), person.getName());
+        }
+        return result;
+    }
+
+    // ---------- joining ----------
+
+    @Benchmark
+    public String joiningCollector() {
+        return words.stream().collect(Collectors.joining(","));
+    }
+
+    @Benchmark
+    public String joiningLoop() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(words.get(i));
+        }
+        return sb.toString();
+    }
+
+    // ---------- counting ----------
+
+    @Benchmark
+    public Long countingCollector() {
+        return words.stream().collect(Collectors.counting());
+    }
+
+    @Benchmark
+    public long countingLoop() {
+        long count = 0;
+        for (String ignored : words) {
+            count++;
+        }
+        return count;
+    }
+
+    // ---------- maxBy / minBy ----------
+
+    @Benchmark
+    public Optional<Integer> maxByCollector() {
+        return numbers.stream().collect(Collectors.maxBy(Integer::compare));
+    }
+
+    @Benchmark
+    public Integer maxByLoop() {
+        Integer max = null;
+        for (Integer number : numbers) {
+            if (max == null || number > max) {
+                max = number;
+            }
+        }
+        return max;
+    }
+
+    @Benchmark
+    public Optional<Integer> minByCollector() {
+        return numbers.stream().collect(Collectors.minBy(Integer::compare));
+    }
+
+    @Benchmark
+    public Integer minByLoop() {
+        Integer min = null;
+        for (Integer number : numbers) {
+            if (min == null || number < min) {
+                min = number;
+            }
+        }
+        return min;
+    }
+
+    // ---------- summarizingInt / averagingInt ----------
+
+    @Benchmark
+    public IntSummaryStatistics summarizingIntCollector() {
+        return words.stream().collect(Collectors.summarizingInt(String::length));
+    }
+
+    @Benchmark
+    public IntSummaryStatistics summarizingIntLoop() {
+        IntSummaryStatistics statistics = new IntSummaryStatistics();
+        for (String word : words) {
+            statistics.accept(word.length());
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    public Double averagingIntCollector() {
+        return words.stream().collect(Collectors.averagingInt(String::length));
+    }
+
+    @Benchmark
+    public double averagingIntLoop() {
+        long sum = 0;
+        for (String word : words) {
+            sum += word.length();
+        }
+        return words.isEmpty() ? 0 : (double) sum / words.size();
+    }
+
+    // ---------- groupingBy / partitioningBy ----------
+
+    @Benchmark
+    public Map<String, Set<Locale>> groupingByCollector() {
+        return locales.stream().collect(groupingBy(Locale::getCountry, toSet()));
+    }
+
+    @Benchmark
+    public Map<String, Set<Locale>> groupingByLoop() {
+        Map<String, Set<Locale>> result = new HashMap<>();
+        for (Locale locale : locales) {
+            Set<Locale> set = result.get(locale.getCountry());
+            if (set == null) {
+                set = new HashSet<>();
+                result.put(locale.getCountry(), set);
+            }
+            set.add(locale);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<Boolean, List<StreamStudy.Person>> partitioningByCollector() {
+        return peoples.stream().collect(partitioningBy(e -> e.getId().length() > 3));
+    }
+
+    @Benchmark
+    public Map<Boolean, List<StreamStudy.Person>> partitioningByLoop() {
+        Map<Boolean, List<StreamStudy.Person>> result = new HashMap<>();
+        List<StreamStudy.Person> yes = new ArrayList<>();
+        List<StreamStudy.Person> no = new ArrayList<>();
+        for (StreamStudy.Person person : peoples) {
+            (person.getId().length() > 3 ? yes : no).add(person);
+        }
+        result.put(true, yes);
+        result.put(false, no);
+        return result;
+    }
+
+    // ---------- trasformer里的中间操作 ----------
+
+    @Benchmark
+    public long filterCountStream() {
+        return words.stream().filter(p -> p.contains("b")).count();
+    }
+
+    @Benchmark
+    public long filterCountParallelStream() {
+        return words.parallelStream().filter(p -> p.contains("b")).count();
+    }
+
+    @Benchmark
+    public long filterCountLoop() {
+        long count = 0;
+        for (String word : words) {
+            if (word.contains("b")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<String> mapSortedStream() {
+        return words.stream().map(String::toUpperCase).sorted().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> mapSortedLoop() {
+        List<String> result = new ArrayList<>(words.size());
+        for (String word : words) {
+            result.add(word.toUpperCase());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Benchmark
+    public long distinctStream() {
+        return words.stream().distinct().count();
+    }
+
+    @Benchmark
+    public int distinctLoop() {
+        return new HashSet<>(words).size();
+    }
+
+    @Benchmark
+    public Optional<String> reduceStream() {
+        return words.stream().limit(1000).reduce((s1, s2) -> s1 + s2);
+    }
+
+    @Benchmark
+    public String reduceLoop() {
+        String result = null;
+        for (int i = 0, n = Math.min(1000, words.size()); i < n; i++) {
+            result = result == null ? words.get(i) : result + words.get(i);
+        }
+        return result;
+    }
+}
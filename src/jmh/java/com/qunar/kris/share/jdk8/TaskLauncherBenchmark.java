@@ -0,0 +1,97 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 一次发出tasks个并发任务并等待全部结束：每个任务new Thread、平台线程池、TaskLauncher默认模式。
+ * 在JDK21+上运行时默认模式就是虚拟线程，在JDK8上与线程池相同
+ *
+ * @author gongzuo.zy
+ * @version $Id: TaskLauncherBenchmark.java, v0.1 2026-10-19 02:40  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskLauncherBenchmark {
+
+    @Param({"100000"})
+    int tasks;
+
+    // 每个任务阻塞的时间，模拟一次远程调用
+    @Param({"0", "100"})
+    int blockMicros;
+
+    TaskLauncher pool;
+
+    @Setup
+    public void setup() {
+        pool = new TaskLauncher(TaskLauncher.Mode.POOL, Runtime.getRuntime().availableProcessors() * 2);
+        System.out.println();
+        System.out.println("default mode: " + TaskLauncher.shared().mode());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    private Runnable task(CountDownLatch done) {
+        return () -> {
+            if (blockMicros > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(blockMicros));
+            }
+            done.countDown();
+        };
+    }
+
+    // 原来的写法：LambdaStudy.Man.sayGreet
+    @Benchmark
+    public void threadPerCall() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            new Thread(task(done)).start();
+        }
+        done.await();
+    }
+
+    @Benchmark
+    public void platformPool() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            pool.launch(task(done));
+        }
+        done.await();
+    }
+
+    @Benchmark
+    public void launcherDefault() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            TaskLauncher.shared().launch(task(done));
+        }
+        done.await();
+    }
+
+    // 结构化的写法，join等待全部任务
+    @Benchmark
+    public void launcherScope() throws Exception {
+        CountDownLatch done = new CountDownLatch(tasks);
+        try (TaskLauncher.Scope scope = TaskLauncher.shared().scope()) {
+            for (int i = 0; i < tasks; i++) {
+                scope.fork(task(done));
+            }
+            scope.join();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimeStudy中新时间api与Date/Calendar/SimpleDateFormat的对比，每次操作处理size个时间
+ *
+ * @author gongzuo.zy
+ * @version $Id: TimeStudyBenchmark.java, v0.1 2026-10-18 10:50  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeStudyBenchmark {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MM dd yyyy");
+
+    private static final ZoneId AMERICA = ZoneId.of("America/New_York");
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    String[] basicDates;
+
+    String[] customDates;
+
+    long[] epochMillis;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        basicDates = new String[size];
+        customDates = new String[size];
+        epochMillis = new long[size];
+        for (int i = 0; i < size; i++) {
+            LocalDate date = LocalDate.ofEpochDay(random.nextInt(40000));
+            basicDates[i] = date.format(DateTimeFormatter.BASIC_ISO_DATE);
+            customDates[i] = date.format(FORMATTER);
+            epochMillis[i] = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + random.nextInt(86400000);
+        }
+    }
+
+    // ---------- 当前时间 ----------
+
+    @Benchmark
+    public void instantNow(Blackhole bh) {
+        for (int i = 0; i < size; i++) {
+            bh.consume(Instant.now());
+        }
+    }
+
+    @Benchmark
+    public void dateNew(Blackhole bh) {
+        for (int i = 0; i < size; i++) {
+            bh.consume(new Date());
+        }
+    }
+
+    @Benchmark
+    public void localDateTimeNow(Blackhole bh) {
+        for (int i = 0; i < size; i++) {
+            bh.consume(LocalDateTime.now());
+        }
+    }
+
+    @Benchmark
+    public void calendarNow(Blackhole bh) {
+        for (int i = 0; i < size; i++) {
+            bh.consume(Calendar.getInstance());
+        }
+    }
+
+    // ---------- 加减 ----------
+
+    @Benchmark
+    public void localDatePlusWeek(Blackhole bh) {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < size; i++) {
+            bh.consume(today.plus(1, ChronoUnit.WEEKS));
+        }
+    }
+
+    @Benchmark
+    public void calendarPlusWeek(Blackhole bh) {
+        Calendar today = Calendar.getInstance();
+        for (int i = 0; i < size; i++) {
+            Calendar next = (Calendar) today.clone();
+            next.add(Calendar.WEEK_OF_YEAR, 1);
+            bh.consume(next);
+        }
+    }
+
+    // ---------- 解析 ----------
+
+    @Benchmark
+    public void parseBasicIsoDate(Blackhole bh) {
+        for (String s : basicDates) {
+            bh.consume(LocalDate.parse(s, DateTimeFormatter.BASIC_ISO_DATE));
+        }
+    }
+
+    @Benchmark
+    public void parseCustomPattern(Blackhole bh) {
+        for (String s : customDates) {
+            bh.consume(LocalDate.parse(s, FORMATTER));
+        }
+    }
+
+    // TimeStudy中的写法，每次都编译formatter
+    @Benchmark
+    public void parseCustomPatternInline(Blackhole bh) {
+        for (String s : customDates) {
+            bh.consume(LocalDate.parse(s, DateTimeFormatter.ofPattern("MM dd yyyy")));
+        }
+    }
+
+    @Benchmark
+    public void parseCustomPatternRegistry(Blackhole bh) {
+        for (String s : customDates) {
+            bh.consume(LocalDate.parse(s, DateTimeFormatters.ofPattern("MM dd yyyy")));
+        }
+    }
+
+    @Benchmark
+    public void parseCustomPatternFast(Blackhole bh) {
+        for (String s : customDates) {
+            bh.consume(DateTimeFormatters.parseEpochDay(s, "MM dd yyyy"));
+        }
+    }
+
+    @Benchmark
+    public void parseBasicIsoDateFast(Blackhole bh) {
+        for (String s : basicDates) {
+            bh.consume(DateTimeFormatters.parseBasicIsoEpochDay(s));
+        }
+    }
+
+    @Benchmark
+    public void parseSimpleDateFormat(Blackhole bh) throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("MM dd yyyy");
+        for (String s : customDates) {
+            bh.consume(format.parse(s));
+        }
+    }
+
+    // ---------- 格式化 ----------
+
+    @Benchmark
+    public void formatLocalDateTime(Blackhole bh) {
+        for (long millis : epochMillis) {
+            bh.consume(LocalDateTime.ofEpochSecond(millis / 1000, 0, ZoneOffset.UTC).format(FORMATTER));
+        }
+    }
+
+    @Benchmark
+    public void formatSimpleDateFormat(Blackhole bh) {
+        SimpleDateFormat format = new SimpleDateFormat("MM dd yyyy");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        for (long millis : epochMillis) {
+            bh.consume(format.format(new Date(millis)));
+        }
+    }
+
+    // ---------- 时区 ----------
+
+    @Benchmark
+    public void zonedDateTime(Blackhole bh) {
+        for (long millis : epochMillis) {
+            bh.consume(ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), AMERICA));
+        }
+    }
+
+    @Benchmark
+    public void zonedDateTimeLookup(Blackhole bh) {
+        for (long millis : epochMillis) {
+            bh.consume(ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.of("America/New_York")));
+        }
+    }
+
+    @Benchmark
+    public void calendarTimeZone(Blackhole bh) {
+        TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        for (long millis : epochMillis) {
+            Calendar calendar = Calendar.getInstance(zone);
+            calendar.setTimeInMillis(millis);
+            bh.consume(calendar.get(Calendar.HOUR_OF_DAY));
+        }
+    }
+
+    // ---------- 日期比较 ----------
+
+    @Benchmark
+    public void periodBetween(Blackhole bh) {
+        LocalDate today = LocalDate.now();
+        for (long millis : epochMillis) {
+            bh.consume(Period.between(today, LocalDate.ofEpochDay(millis / 86400000)).getDays());
+        }
+    }
+
+    @Benchmark
+    public void monthDayEquals(Blackhole bh) {
+        MonthDay birthday = MonthDay.of(1, 14);
+        for (long millis : epochMillis) {
+            bh.consume(MonthDay.from(LocalDate.ofEpochDay(millis / 86400000)).equals(birthday));
+        }
+    }
+}
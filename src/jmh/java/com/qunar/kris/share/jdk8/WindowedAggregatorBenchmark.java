@@ -0,0 +1,115 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.IntSummaryStatistics;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 窗口聚合的吞吐（events/s）：事件时间上每秒约2000个事件，窗口10秒，panes = size/slide。
+ * naive是每个事件累加到它所属的每一个窗口，窗口越密越慢；WindowedAggregator与panes无关
+ *
+ * @author gongzuo.zy
+ * @version $Id: WindowedAggregatorBenchmark.java, v0.1 2026-10-19 07:30  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WindowedAggregatorBenchmark {
+
+    private static final int EVENTS = 1 << 20;
+
+    private static final long SIZE_MILLIS = 10000;
+
+    @Param({"1", "10", "1000"})
+    int panes;
+
+    Event[] events;
+
+    public static final class Event {
+
+        private final Instant time;
+
+        private final int value;
+
+        Event(Instant time, int value) {
+            this.time = time;
+            this.value = value;
+        }
+
+        public Instant getTime() {
+            return time;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        events = new Event[EVENTS];
+        long millis = Instant.parse("2026-10-19T00:00:00Z").toEpochMilli();
+        for (int i = 0; i < EVENTS; i++) {
+            millis += random.nextInt(200) / 100;
+            events[i] = new Event(Instant.ofEpochMilli(millis), random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long windowed(Blackhole bh) {
+        WindowedAggregator<Event, ?, IntSummaryStatistics> aggregator = WindowedAggregator.sliding(
+                Duration.ofMillis(SIZE_MILLIS), Duration.ofMillis(SIZE_MILLIS / panes), Event::getTime,
+                Collectors.summarizingInt(Event::getValue), bh::consume);
+        for (Event event : events) {
+            aggregator.accept(event);
+        }
+        aggregator.flush();
+        return aggregator.windows();
+    }
+
+    /*
+     * 每个打开的窗口一个IntSummaryStatistics，事件累加到所有包含它的窗口
+     */
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long naive(Blackhole bh) {
+        long slide = SIZE_MILLIS / panes;
+        ArrayDeque<long[]> ends = new ArrayDeque<>();
+        ArrayDeque<IntSummaryStatistics> open = new ArrayDeque<>();
+        long windows = 0;
+        for (Event event : events) {
+            long millis = event.getTime().toEpochMilli();
+            while (!ends.isEmpty() && ends.peekFirst()[0] <= millis) {
+                ends.pollFirst();
+                bh.consume(open.pollFirst());
+                windows++;
+            }
+            long lastEnd = ends.isEmpty() ? Math.floorDiv(millis, slide) * slide : ends.peekLast()[0];
+            while (lastEnd < Math.floorDiv(millis, slide) * slide + SIZE_MILLIS) {
+                lastEnd += slide;
+                ends.addLast(new long[]{lastEnd});
+                open.addLast(new IntSummaryStatistics());
+            }
+            for (IntSummaryStatistics statistics : open) {
+                statistics.accept(event.getValue());
+            }
+        }
+        return windows;
+    }
+}
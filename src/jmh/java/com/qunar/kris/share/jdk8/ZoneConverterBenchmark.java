@@ -0,0 +1,113 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量时区转换：逐个ZonedDateTime/ZoneRules和ZoneConverter的对比，每次操作转换size个时间（us/op）。
+ * sorted=true时时间递增（日志、时序数据），false时在50年内随机
+ *
+ * @author gongzuo.zy
+ * @version $Id: ZoneConverterBenchmark.java, v0.1 2026-10-19 06:30  gongzuo.zy Exp $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ZoneConverterBenchmark {
+
+    private static final String ZONE = "America/New_York";
+
+    @Param({"100000", "4000000"})
+    int size;
+
+    @Param({"true", "false"})
+    boolean sorted;
+
+    long[] epochMillis;
+
+    long[] localMillis;
+
+    long[] out;
+
+    ZoneConverter converter;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        long start = Instant.parse("2000-01-01T00:00:00Z").toEpochMilli();
+        long span = 50L * 365 * 86400000L;
+        epochMillis = new long[size];
+        for (int i = 0; i < size; i++) {
+            epochMillis[i] = sorted ? start + span / size * i : start + (long) (random.nextDouble() * span);
+        }
+        converter = ZoneConverter.of(ZONE);
+        localMillis = new long[size];
+        converter.toLocalMillis(epochMillis, localMillis);
+        out = new long[size];
+    }
+
+    // ---------- epochMillis -> 本地时间 ----------
+
+    @Benchmark
+    public long[] zonedDateTime() {
+        for (int i = 0; i < size; i++) {
+            LocalDateTime local = Instant.ofEpochMilli(epochMillis[i]).atZone(ZoneId.of(ZONE)).toLocalDateTime();
+            out[i] = local.toEpochSecond(ZoneOffset.UTC) * 1000 + local.getNano() / 1000000;
+        }
+        return out;
+    }
+
+    @Benchmark
+    public long[] zoneRules() {
+        java.time.zone.ZoneRules rules = ZoneId.of(ZONE).getRules();
+        for (int i = 0; i < size; i++) {
+            out[i] = epochMillis[i] + rules.getOffset(Instant.ofEpochMilli(epochMillis[i])).getTotalSeconds() * 1000L;
+        }
+        return out;
+    }
+
+    @Benchmark
+    public long[] converter() {
+        ZoneConverter.of(ZONE).toLocalMillis(epochMillis, out);
+        return out;
+    }
+
+    @Benchmark
+    public long[] converterParallel() {
+        ZoneConverter.of(ZONE).toLocalMillisParallel(epochMillis, out);
+        return out;
+    }
+
+    // ---------- 本地时间 -> epochMillis ----------
+
+    @Benchmark
+    public long[] zonedDateTimeReverse() {
+        ZoneId zone = ZoneId.of(ZONE);
+        for (int i = 0; i < size; i++) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis[i], 1000),
+                    (int) Math.floorMod(localMillis[i], 1000) * 1000000, ZoneOffset.UTC);
+            out[i] = ZonedDateTime.of(local, zone).toInstant().toEpochMilli();
+        }
+        return out;
+    }
+
+    @Benchmark
+    public long[] converterReverse() {
+        converter.toEpochMillis(localMillis, out);
+        return out;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ZoneConverter与ZoneRules/ZonedDateTime的逐个对照，改了ZoneConverter之后跑一遍，不一致时以非0退出。
+ * 每个时区检查：所有历史切换点前后、2020年之后按规则推出来的切换点前后、±250年内的随机时间、表范围之外的极端值；
+ * 本地时间方向上专门落到夏令时的空档（gap）和重叠（overlap）里。最后对比并行和串行的结果
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar com.qunar.kris.share.jdk8.ZoneConverterCheck [Asia/Shanghai America/New_York ...]
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: ZoneConverterCheck.java, v0.1 2026-10-19 20:10  gongzuo.zy Exp $
+ */
+public class ZoneConverterCheck {
+
+    // 相对切换点的偏移，覆盖切换前后各两小时
+    private static final long[] AROUND_TRANSITION = {-7200001, -3600000, -1, 0, 1, 1800000, 3600000, 7199999};
+
+    private static final long[] AROUND_FUTURE_TRANSITION = {-1, 0, 1, 3599999};
+
+    private static final int FUTURE_TRANSITIONS = 20;
+
+    private static final int RANDOM_PROBES = 300;
+
+    private static final long RANDOM_RANGE = 8000000000000L;
+
+    private static final Instant FUTURE_FROM = Instant.parse("2020-01-01T00:00:00Z");
+
+    public static void main(String[] args) {
+        List<String> zones = new ArrayList<>(args.length > 0 ? Arrays.asList(args) : ZoneId.getAvailableZoneIds());
+        Collections.sort(zones);
+        Random random = new Random(3);
+        List<String> failures = new ArrayList<>();
+        for (String zone : zones) {
+            String failure = check(zone, random);
+            if (failure != null) {
+                failures.add(failure);
+            }
+        }
+        String parallel = checkParallel();
+        if (parallel != null) {
+            failures.add(parallel);
+        }
+        failures.forEach(System.out::println);
+        System.out.println("zones=" + zones.size() + " failures=" + failures.size());
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /*
+     * 返回第一个不一致的说明，全部一致返回null
+     */
+    private static String check(String id, Random random) {
+        ZoneId zone = ZoneId.of(id);
+        ZoneRules rules = zone.getRules();
+        ZoneConverter converter = ZoneConverter.of(id);
+        long[] epochMillis = probes(rules, random);
+
+        long[] localMillis = new long[epochMillis.length];
+        int[] offsetSeconds = new int[epochMillis.length];
+        converter.toLocalMillis(epochMillis, localMillis);
+        converter.offsetSeconds(epochMillis, offsetSeconds);
+        for (int i = 0; i < epochMillis.length; i++) {
+            int expected = rules.getOffset(Instant.ofEpochMilli(epochMillis[i])).getTotalSeconds();
+            if (localMillis[i] != epochMillis[i] + expected * 1000L || offsetSeconds[i] != expected
+                    || converter.toLocalMillis(epochMillis[i]) != localMillis[i]) {
+                return "toLocalMillis " + id + " " + Instant.ofEpochMilli(epochMillis[i]);
+            }
+        }
+
+        // 切换点后半小时的本地时间要么落在空档里，要么落在重叠里，间隔着挪过去
+        long[] local = localMillis.clone();
+        for (int i = 1; i < local.length; i += 3) {
+            local[i] += 1800000;
+        }
+        long[] back = new long[local.length];
+        converter.toEpochMillis(local, back);
+        for (int i = 0; i < local.length; i++) {
+            // ZonedDateTime.of超出LocalDateTime的范围
+            if (Math.abs(local[i]) > Long.MAX_VALUE / 4) {
+                continue;
+            }
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(local[i], 1000),
+                    (int) Math.floorMod(local[i], 1000) * 1000000, ZoneOffset.UTC);
+            long expected = ZonedDateTime.of(dateTime, zone).toInstant().toEpochMilli();
+            if (back[i] != expected || converter.toEpochMillis(local[i]) != expected) {
+                return "toEpochMillis " + id + " " + dateTime + " expected=" + Instant.ofEpochMilli(expected)
+                        + " actual=" + Instant.ofEpochMilli(back[i]);
+            }
+        }
+        return null;
+    }
+
+    private static long[] probes(ZoneRules rules, Random random) {
+        List<Long> probes = new ArrayList<>();
+        for (ZoneOffsetTransition transition : rules.getTransitions()) {
+            long millis = transition.getInstant().toEpochMilli();
+            for (long delta : AROUND_TRANSITION) {
+                probes.add(millis + delta);
+            }
+        }
+        ZoneOffsetTransition transition = rules.nextTransition(FUTURE_FROM);
+        for (int i = 0; i < FUTURE_TRANSITIONS && transition != null; i++) {
+            long millis = transition.getInstant().toEpochMilli();
+            for (long delta : AROUND_FUTURE_TRANSITION) {
+                probes.add(millis + delta);
+            }
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        for (int i = 0; i < RANDOM_PROBES; i++) {
+            probes.add(random.nextLong() % RANDOM_RANGE);
+        }
+        probes.add(Long.MIN_VALUE / 2);
+        probes.add(Long.MAX_VALUE / 2);
+        return probes.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static String checkParallel() {
+        ZoneConverter converter = ZoneConverter.of("America/New_York");
+        long[] epochMillis = new long[1 << 18];
+        long base = Instant.parse("2020-03-01T00:00:00Z").toEpochMilli();
+        for (int i = 0; i < epochMillis.length; i++) {
+            epochMillis[i] = base + i * 60000L;
+        }
+        long[] sequential = new long[epochMillis.length];
+        long[] parallel = new long[epochMillis.length];
+        converter.toLocalMillis(epochMillis, sequential);
+        converter.toLocalMillisParallel(epochMillis, parallel);
+        if (!Arrays.equals(sequential, parallel)) {
+            return "toLocalMillisParallel America/New_York";
+        }
+        long[] back = new long[epochMillis.length];
+        converter.toEpochMillis(sequential, back);
+        converter.toEpochMillisParallel(sequential, parallel);
+        if (!Arrays.equals(back, parallel)) {
+            return "toEpochMillisParallel America/New_York";
+        }
+        return null;
+    }
+}
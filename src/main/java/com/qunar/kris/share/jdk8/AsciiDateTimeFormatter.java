@@ -0,0 +1,569 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 把时间直接写成ASCII字节/字符的格式化器，用在访问日志这种每条记录都要格式化时间的地方。
+ * 支持DateTimeFormatter pattern里的数字字段：yyyy/uuuu、yy/uu、M/MM、d/dd、H/HH、m/mm、s/ss、S到SSSSSSSSS，
+ * 以及ASCII的字面量（包括'引号'），输出与同一个pattern的DateTimeFormatter逐字节一致；其他字母在ofPattern时抛出IllegalArgumentException。
+ * <p>
+ * 同一秒内的时间只有秒的小数部分不同，最近一秒的输出缓存下来，后面只需要拷贝再改写小数位；
+ * 换秒时如果还是同一天，年月日也不再重新计算。时间往回跳（比如乱序的日志）时直接计算，不替换缓存，
+ * 所以稳定状态下每秒最多分配一次。年份超出0到9999时交给DateTimeFormatter处理
+ *
+ * <pre>
+ *   AsciiDateTimeFormatter formatter = AsciiDateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+ *           .withZone(ZoneId.systemDefault());
+ *   formatter.formatEpochMillis(System.currentTimeMillis(), buffer);
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: AsciiDateTimeFormatter.java, v0.1 2026-10-19 05:30  gongzuo.zy Exp $
+ */
+public final class AsciiDateTimeFormatter {
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private static final int DAYS_PER_CYCLE = 146097;
+
+    private static final long DAYS_0000_TO_1970 = 719528;
+
+    // 0000-01-01、0001-01-01和9999-12-31的epochDay，范围外的年份交给DateTimeFormatter
+    private static final long YEAR_ZERO_DAY = -719528;
+
+    private static final long YEAR_ONE_DAY = -719162;
+
+    private static final long LAST_DAY = 2932896;
+
+    private static final int[] POWERS = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000};
+
+    private final String pattern;
+
+    private final Segment[] segments;
+
+    private final int maxLength;
+
+    private final ZoneId zone;
+
+    private final DateTimeFormatter formatter;
+
+    private final ThreadLocal<byte[]> scratch;
+
+    // yyyy/yy是YEAR_OF_ERA，公元前1年（year=0）要交给DateTimeFormatter
+    private final boolean yearZeroAllowed;
+
+    // 最近一秒的输出
+    private volatile Template template = Template.EMPTY;
+
+    // 当前时区偏移的有效区间，只在跨过夏令时切换时重新计算
+    private volatile Offset offset;
+
+    private AsciiDateTimeFormatter(String pattern, Segment[] segments, ZoneId zone) {
+        this.pattern = pattern;
+        this.segments = segments;
+        this.zone = zone;
+        this.formatter = DateTimeFormatters.ofPattern(pattern, Locale.ROOT).withZone(zone);
+        int length = 0;
+        for (Segment segment : segments) {
+            length += segment.maxLength();
+        }
+        this.maxLength = length;
+        boolean yearZeroAllowed = true;
+        for (Segment segment : segments) {
+            yearZeroAllowed &= !(segment instanceof Year) || ((Year) segment).proleptic;
+        }
+        this.yearZeroAllowed = yearZeroAllowed;
+        this.scratch = ThreadLocal.withInitial(() -> new byte[maxLength]);
+        this.offset = Offset.of(zone, 0);
+    }
+
+    /**
+     * Instant和epochMillis按UTC输出，需要别的时区用withZone
+     */
+    public static AsciiDateTimeFormatter ofPattern(String pattern) {
+        return new AsciiDateTimeFormatter(pattern, compile(pattern), ZoneOffset.UTC);
+    }
+
+    public AsciiDateTimeFormatter withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new AsciiDateTimeFormatter(pattern, segments, zone);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // 一次输出最多多少个字节
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * 输出一致的DateTimeFormatter
+     */
+    public DateTimeFormatter toFormatter() {
+        return formatter;
+    }
+
+    /*
+     * 从buffer的position开始写，position前进输出的长度；剩余空间不够时抛出BufferOverflowException
+     */
+    public int format(LocalDateTime dateTime, ByteBuffer out) {
+        return write(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano(), out);
+    }
+
+    public int format(Instant instant, ByteBuffer out) {
+        return write(toLocalSecond(instant.getEpochSecond()), instant.getNano(), out);
+    }
+
+    public int formatEpochMillis(long epochMillis, ByteBuffer out) {
+        return write(toLocalSecond(Math.floorDiv(epochMillis, 1000)), (int) Math.floorMod(epochMillis, 1000) * 1000000, out);
+    }
+
+    /*
+     * 写到out[offset]开始的位置，返回输出的长度
+     */
+    public int format(LocalDateTime dateTime, char[] out, int offset) {
+        return write(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano(), out, offset);
+    }
+
+    public int format(Instant instant, char[] out, int offset) {
+        return write(toLocalSecond(instant.getEpochSecond()), instant.getNano(), out, offset);
+    }
+
+    public int formatEpochMillis(long epochMillis, char[] out, int offset) {
+        return write(toLocalSecond(Math.floorDiv(epochMillis, 1000)), (int) Math.floorMod(epochMillis, 1000) * 1000000, out, offset);
+    }
+
+    private int write(long localSecond, int nano, ByteBuffer out) {
+        int position = out.position();
+        if (out.hasArray() && out.remaining() >= maxLength) {
+            int length = render(localSecond, nano, out.array(), out.arrayOffset() + position);
+            out.position(position + length);
+            return length;
+        }
+        byte[] bytes = scratch.get();
+        int length = render(localSecond, nano, bytes, 0);
+        if (out.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        out.put(bytes, 0, length);
+        return length;
+    }
+
+    private int write(long localSecond, int nano, char[] out, int offset) {
+        byte[] bytes = scratch.get();
+        int length = render(localSecond, nano, bytes, 0);
+        if (offset < 0 || out.length - offset < length) {
+            throw new ArrayIndexOutOfBoundsException("need " + length + " chars at " + offset + " of " + out.length);
+        }
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = (char) bytes[i];
+        }
+        return length;
+    }
+
+    private long toLocalSecond(long epochSecond) {
+        Offset current = offset;
+        if (epochSecond < current.from || epochSecond >= current.until) {
+            current = Offset.of(zone, epochSecond);
+            offset = current;
+        }
+        return epochSecond + current.seconds;
+    }
+
+    /*
+     * 写到out[pos]开始的位置，调用方保证有maxLength的空间
+     */
+    private int render(long localSecond, int nano, byte[] out, int pos) {
+        Template cached = template;
+        if (cached.second == localSecond) {
+            System.arraycopy(cached.bytes, 0, out, pos, cached.bytes.length);
+            for (int i = 0; i < cached.fractions.length; i++) {
+                Fraction fraction = (Fraction) segments[cached.fractionSegments[i]];
+                fraction.write(nano, out, pos + cached.fractions[i]);
+            }
+            return cached.bytes.length;
+        }
+        long epochDay = Math.floorDiv(localSecond, SECONDS_PER_DAY);
+        if (epochDay < (yearZeroAllowed ? YEAR_ZERO_DAY : YEAR_ONE_DAY) || epochDay > LAST_DAY) {
+            return fallback(localSecond, nano, out, pos);
+        }
+        int date = epochDay == cached.epochDay ? cached.date : toDate(epochDay);
+        int secondOfDay = (int) Math.floorMod(localSecond, SECONDS_PER_DAY);
+        int start = pos;
+        int[] fractions = null;
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] instanceof Fraction && localSecond > cached.second) {
+                if (fractions == null) {
+                    fractions = new int[segments.length];
+                }
+                fractions[i] = pos - start + 1;
+            }
+            pos = segments[i].write(date, secondOfDay, nano, out, pos);
+        }
+        // 只有往后走的时间才替换缓存
+        if (localSecond > cached.second) {
+            template = new Template(localSecond, epochDay, date, out, start, pos - start, fractions);
+        }
+        return pos - start;
+    }
+
+    private int fallback(long localSecond, int nano, byte[] out, int pos) {
+        String text = formatter.format(LocalDateTime.ofEpochSecond(localSecond, nano, ZoneOffset.UTC));
+        for (int i = 0; i < text.length(); i++) {
+            out[pos + i] = (byte) text.charAt(i);
+        }
+        return text.length();
+    }
+
+    /*
+     * 与LocalDate.ofEpochDay相同的算法，结果打包成 year<<9 | month<<5 | day
+     */
+    static int toDate(long epochDay) {
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / DAYS_PER_CYCLE - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+        }
+        long yearEst = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+        return (int) yearEst << 9 | month << 5 | day;
+    }
+
+    /*
+     * 按DateTimeFormatterBuilder.appendPattern的规则拆分pattern，只接受数字字段和ASCII字面量
+     */
+    private static Segment[] compile(String pattern) {
+        Objects.requireNonNull(pattern);
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                int count = 1;
+                while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                    count++;
+                }
+                if (literal.length() > 0) {
+                    segments.add(new Literal(literal.toString()));
+                    literal.setLength(0);
+                }
+                segments.add(field(pattern, c, count));
+                i += count;
+            } else if (c == '\'') {
+                int end = i + 1;
+                while (true) {
+                    if (end >= pattern.length()) {
+                        throw new IllegalArgumentException("unterminated quote in pattern: " + pattern);
+                    }
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+                            end++;
+                        } else {
+                            break;
+                        }
+                    }
+                    end++;
+                }
+                // '' 表示一个单引号
+                literal.append(end == i + 1 ? "'" : pattern.substring(i + 1, end).replace("''", "'"));
+                i = end + 1;
+            } else if ("[]{}#".indexOf(c) >= 0 || c < 0x20 || c > 0x7e) {
+                throw new IllegalArgumentException("unsupported character '" + c + "' in pattern: " + pattern);
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+        }
+        for (Segment segment : segments) {
+            if (segment instanceof Literal && !((Literal) segment).ascii) {
+                throw new IllegalArgumentException("non-ASCII literal in pattern: " + pattern);
+            }
+        }
+        return segments.toArray(new Segment[0]);
+    }
+
+    private static Segment field(String pattern, char letter, int count) {
+        switch (letter) {
+            case 'y':
+            case 'u':
+                if (count == 2 || count == 4) {
+                    return new Year(count, letter == 'u');
+                }
+                break;
+            case 'M':
+                return number(pattern, letter, count, 1);
+            case 'd':
+                return number(pattern, letter, count, 2);
+            case 'H':
+                return number(pattern, letter, count, 3);
+            case 'm':
+                return number(pattern, letter, count, 4);
+            case 's':
+                return number(pattern, letter, count, 5);
+            case 'S':
+                if (count <= 9) {
+                    return new Fraction(count);
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("unsupported field " + repeat(letter, count) + " in pattern: " + pattern);
+    }
+
+    private static Segment number(String pattern, char letter, int count, int field) {
+        if (count > 2) {
+            throw new IllegalArgumentException("unsupported field " + repeat(letter, count) + " in pattern: " + pattern);
+        }
+        return new Number(field, count);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static int writeDigits(int value, int width, byte[] out, int pos) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    // date是toDate打包的年月日
+    private interface Segment {
+
+        int maxLength();
+
+        int write(int date, int secondOfDay, int nano, byte[] out, int pos);
+    }
+
+    private static final class Literal implements Segment {
+
+        private final byte[] bytes;
+
+        private final boolean ascii;
+
+        Literal(String text) {
+            this.bytes = new byte[text.length()];
+            boolean ascii = true;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                ascii &= c < 0x80;
+                bytes[i] = (byte) c;
+            }
+            this.ascii = ascii;
+        }
+
+        @Override
+        public int maxLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public int write(int date, int secondOfDay, int nano, byte[] out, int pos) {
+            System.arraycopy(bytes, 0, out, pos, bytes.length);
+            return pos + bytes.length;
+        }
+    }
+
+    // yyyy/uuuu四位补零，yy/uu是年份后两位；超出0到9999时DateTimeFormatter会输出符号和最多10位数字
+    private static final class Year implements Segment {
+
+        private final int width;
+
+        private final boolean proleptic;
+
+        Year(int width, boolean proleptic) {
+            this.width = width;
+            this.proleptic = proleptic;
+        }
+
+        @Override
+        public int maxLength() {
+            return width == 2 ? 2 : 11;
+        }
+
+        @Override
+        public int write(int date, int secondOfDay, int nano, byte[] out, int pos) {
+            int year = date >> 9;
+            return writeDigits(width == 2 ? year % 100 : year, width, out, pos);
+        }
+    }
+
+    // 一个字母时不补零，两个字母时补到两位。field：1月 2日 3时 4分 5秒
+    private static final class Number implements Segment {
+
+        private final int field;
+
+        private final int width;
+
+        Number(int field, int width) {
+            this.field = field;
+            this.width = width;
+        }
+
+        @Override
+        public int maxLength() {
+            return 2;
+        }
+
+        @Override
+        public int write(int date, int secondOfDay, int nano, byte[] out, int pos) {
+            int value = value(date, secondOfDay);
+            return writeDigits(value, width == 1 && value < 10 ? 1 : 2, out, pos);
+        }
+
+        private int value(int date, int secondOfDay) {
+            switch (field) {
+                case 1:
+                    return date >> 5 & 0xf;
+                case 2:
+                    return date & 0x1f;
+                case 3:
+                    return secondOfDay / 3600;
+                case 4:
+                    return secondOfDay / 60 % 60;
+                default:
+                    return secondOfDay % 60;
+            }
+        }
+    }
+
+    // 秒的小数部分，截断到width位
+    private static final class Fraction implements Segment {
+
+        private final int width;
+
+        Fraction(int width) {
+            this.width = width;
+        }
+
+        @Override
+        public int maxLength() {
+            return width;
+        }
+
+        @Override
+        public int write(int date, int secondOfDay, int nano, byte[] out, int pos) {
+            return write(nano, out, pos);
+        }
+
+        int write(int nano, byte[] out, int pos) {
+            return writeDigits(nano / POWERS[9 - width], width, out, pos);
+        }
+    }
+
+    private static final class Template {
+
+        static final Template EMPTY = new Template();
+
+        private final long second;
+
+        private final long epochDay;
+
+        private final int date;
+
+        private final byte[] bytes;
+
+        // 小数部分在bytes里的位置和对应的segment下标
+        private final int[] fractions;
+
+        private final int[] fractionSegments;
+
+        private Template() {
+            this.second = Long.MIN_VALUE;
+            this.epochDay = Long.MIN_VALUE;
+            this.date = 0;
+            this.bytes = new byte[0];
+            this.fractions = new int[0];
+            this.fractionSegments = new int[0];
+        }
+
+        // positions里非0的位置是小数部分的偏移+1
+        Template(long second, long epochDay, int date, byte[] out, int start, int length, int[] positions) {
+            this.second = second;
+            this.epochDay = epochDay;
+            this.date = date;
+            this.bytes = Arrays.copyOfRange(out, start, start + length);
+            int count = 0;
+            for (int i = 0; positions != null && i < positions.length; i++) {
+                if (positions[i] != 0) {
+                    count++;
+                }
+            }
+            this.fractions = new int[count];
+            this.fractionSegments = new int[count];
+            for (int i = 0, j = 0; j < count; i++) {
+                if (positions[i] != 0) {
+                    fractions[j] = positions[i] - 1;
+                    fractionSegments[j++] = i;
+                }
+            }
+        }
+    }
+
+    private static final class Offset {
+
+        private final long from;
+
+        private final long until;
+
+        private final int seconds;
+
+        private Offset(long from, long until, int seconds) {
+            this.from = from;
+            this.until = until;
+            this.seconds = seconds;
+        }
+
+        // 包含epochSecond的那一段固定偏移
+        static Offset of(ZoneId zone, long epochSecond) {
+            ZoneRules rules = zone.getRules();
+            if (rules.isFixedOffset()) {
+                return new Offset(Long.MIN_VALUE, Long.MAX_VALUE, rules.getOffset(Instant.EPOCH).getTotalSeconds());
+            }
+            Instant instant = Instant.ofEpochSecond(epochSecond);
+            ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            return new Offset(previous == null ? Long.MIN_VALUE : previous.toEpochSecond(),
+                    next == null ? Long.MAX_VALUE : next.toEpochSecond(), rules.getOffset(instant).getTotalSeconds());
+        }
+    }
+}
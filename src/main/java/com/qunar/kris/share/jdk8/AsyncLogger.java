@@ -0,0 +1,246 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * 在ProgramLambdaStudy.info的基础上更进一步：不仅延迟拼装日志内容，连logger.log也放到后台线程。
+ * 调用线程只做isLoggable判断并把事件放进无锁环形队列，后台线程批量取出，执行supplier并写日志。
+ * 时间和线程id在入队时记录，LogRecord里是调用时的值；调用位置需要用logp显式传入，
+ * 不传时source为空（不会去推断，后台线程的调用栈没有意义）。
+ * 注意supplier会在后台线程、稍晚的时间执行，不要在里面引用之后会被修改的可变对象
+ *
+ * @author gongzuo.zy
+ * @version $Id: AsyncLogger.java, v0.1 2026-10-18 19:30  gongzuo.zy Exp $
+ */
+public class AsyncLogger implements AutoCloseable {
+
+    // 队列满时的处理策略
+    public enum Overflow {
+        // 丢弃本条日志，计入dropped
+        DROP,
+        // 调用线程等待，直到有空位
+        BLOCK
+    }
+
+    private static final int BATCH_SIZE = 256;
+
+    // tail的最高位，置上之后不再接收新日志
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final int mask;
+
+    private final Overflow overflow;
+
+    // 每个槽位的序号：等于pos表示可写，等于pos+1表示已发布可读（Vyukov有界MPSC队列）
+    private final AtomicLongArray sequences;
+
+    private final Logger[] loggers;
+
+    private final Level[] levels;
+
+    private final Supplier<?>[] messages;
+
+    private final long[] millis;
+
+    private final int[] threadIds;
+
+    private final String[] sourceClasses;
+
+    private final String[] sourceMethods;
+
+    // 下一个写入位置，关闭后带上CLOSED；关闭前入队的日志都在tail之内，后台线程写到tail为止
+    private final AtomicLong tail = new AtomicLong();
+
+    // 只有后台线程读写
+    private long head;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    // 写日志失败时报告到stderr，和Handler的默认行为一样只报告第一次
+    private final ErrorManager errorManager = new ErrorManager();
+
+    private final Thread worker;
+
+    public AsyncLogger(int capacity, Overflow overflow) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.overflow = overflow;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.loggers = new Logger[capacity];
+        this.levels = new Level[capacity];
+        this.messages = new Supplier<?>[capacity];
+        this.millis = new long[capacity];
+        this.threadIds = new int[capacity];
+        this.sourceClasses = new String[capacity];
+        this.sourceMethods = new String[capacity];
+        this.worker = new Thread(this::drainLoop, "async-logger");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public boolean info(Logger logger, Supplier<String> message) {
+        return log(logger, Level.INFO, message);
+    }
+
+    /**
+     * 返回false表示日志被丢弃（DROP策略下队列已满，或者已经关闭）
+     */
+    public boolean log(Logger logger, Level level, Supplier<String> message) {
+        return logp(logger, level, null, null, message);
+    }
+
+    /*
+     * 与Logger.logp一样显式指定调用位置
+     */
+    public boolean logp(Logger logger, Level level, String sourceClass, String sourceMethod, Supplier<String> message) {
+        if (!logger.isLoggable(level)) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        int threadId = (int) Thread.currentThread().getId();
+        while (true) {
+            long pos = tail.get();
+            if (pos < 0) {
+                // 已经关闭
+                break;
+            }
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    loggers[index] = logger;
+                    levels[index] = level;
+                    messages[index] = message;
+                    millis[index] = now;
+                    threadIds[index] = threadId;
+                    sourceClasses[index] = sourceClass;
+                    sourceMethods[index] = sourceMethod;
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 队列满了
+                if (overflow == Overflow.DROP) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            }
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 停止接收新日志，等待后台线程把已经入队的日志写完。
+     * 等待时被中断就不再等，恢复中断状态返回，后台线程仍会把剩下的日志写完
+     */
+    @Override
+    public void close() {
+        long pos = tail.get();
+        while (pos >= 0 && !tail.compareAndSet(pos, pos | CLOSED)) {
+            pos = tail.get();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ErrorManager.error的参数是Exception
+    private static Exception toException(Throwable e) {
+        return e instanceof Exception ? (Exception) e : new RuntimeException(e);
+    }
+
+    private void drainLoop() {
+        Logger[] batchLoggers = new Logger[BATCH_SIZE];
+        Level[] batchLevels = new Level[BATCH_SIZE];
+        Supplier<?>[] batchMessages = new Supplier<?>[BATCH_SIZE];
+        long[] batchMillis = new long[BATCH_SIZE];
+        int[] batchThreadIds = new int[BATCH_SIZE];
+        String[] batchSourceClasses = new String[BATCH_SIZE];
+        String[] batchSourceMethods = new String[BATCH_SIZE];
+        while (true) {
+            int n = 0;
+            while (n < BATCH_SIZE) {
+                int index = (int) head & mask;
+                if (sequences.get(index) != head + 1) {
+                    break;
+                }
+                batchLoggers[n] = loggers[index];
+                batchLevels[n] = levels[index];
+                batchMessages[n] = messages[index];
+                batchMillis[n] = millis[index];
+                batchThreadIds[n] = threadIds[index];
+                batchSourceClasses[n] = sourceClasses[index];
+                batchSourceMethods[n] = sourceMethods[index];
+                loggers[index] = null;
+                levels[index] = null;
+                messages[index] = null;
+                sourceClasses[index] = null;
+                sourceMethods[index] = null;
+                sequences.lazySet(index, head + mask + 1);
+                head++;
+                n++;
+            }
+            for (int i = 0; i < n; i++) {
+                Logger logger = batchLoggers[i];
+                // 一条日志出错（supplier、Handler、Filter抛出任何异常）不能让后台线程退出，否则环形队列再也不会被消费
+                try {
+                    LogRecord record;
+                    try {
+                        record = new LogRecord(batchLevels[i], String.valueOf(batchMessages[i].get()));
+                    } catch (RuntimeException e) {
+                        record = new LogRecord(Level.WARNING, "failed to build log message");
+                        record.setThrown(e);
+                    }
+                    record.setLoggerName(logger.getName());
+                    record.setResourceBundle(logger.getResourceBundle());
+                    record.setResourceBundleName(logger.getResourceBundleName());
+                    record.setMillis(batchMillis[i]);
+                    record.setThreadID(batchThreadIds[i]);
+                    record.setSourceClassName(batchSourceClasses[i]);
+                    record.setSourceMethodName(batchSourceMethods[i]);
+                    logger.log(record);
+                } catch (Throwable e) {
+                    errorManager.error("failed to publish log record to " + logger.getName(), toException(e),
+                            ErrorManager.WRITE_FAILURE);
+                }
+                batchLoggers[i] = null;
+                batchMessages[i] = null;
+                batchSourceClasses[i] = null;
+                batchSourceMethods[i] = null;
+            }
+            if (n == 0) {
+                // 关闭之后，还要确认关闭前入队的日志都已经写完（包括还没发布完的槽位）
+                long pos = tail.get();
+                if (pos < 0 && (pos & ~CLOSED) == head) {
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+    }
+}
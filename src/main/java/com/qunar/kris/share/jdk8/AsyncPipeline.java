@@ -0,0 +1,149 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 基于有界线程池和CompletableFuture的异步流水线，用来替代每次调用都new Thread的做法。
+ * 每一级都投递到同一个有界线程池，队列满的时候按照 {@link Overflow} 处理：
+ * 要么由调用线程自己执行（天然的背压），要么直接返回失败的future
+ *
+ * @author gongzuo.zy
+ * @version $Id: AsyncPipeline.java, v0.1 2026-10-18 13:05  gongzuo.zy Exp $
+ */
+public class AsyncPipeline implements AutoCloseable {
+
+    // 队列满时的处理策略
+    public enum Overflow {
+        // 调用线程自己执行，上游自然就慢下来了
+        CALLER_RUNS,
+        // 返回以RejectedExecutionException失败的future
+        FAIL
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    private final Overflow overflow;
+
+    public AsyncPipeline(String name, int threads, int queueCapacity, Overflow overflow) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("threads and queueCapacity must be positive");
+        }
+        this.overflow = overflow;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonFactory(name), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // 异步执行第一级
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        submit(future, supplier);
+        return future;
+    }
+
+    // 上一级完成后把结果交给下一级，整个过程不阻塞任何线程
+    public <T, R> CompletableFuture<R> thenApplyAsync(CompletableFuture<T> stage, Function<? super T, ? extends R> fn) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        stage.whenComplete((value, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(ex);
+            } else {
+                submit(future, () -> fn.apply(value));
+            }
+        });
+        return future;
+    }
+
+    public <T> CompletableFuture<Void> thenAcceptAsync(CompletableFuture<T> stage, Consumer<? super T> consumer) {
+        return thenApplyAsync(stage, value -> {
+            consumer.accept(value);
+            return null;
+        });
+    }
+
+    /*
+     * 与ProgramLambdaStudy.doInOrderAsync相同的约定：first的结果交给second，
+     * 任何一步抛出的异常（包括队列满被拒绝）都交给handler，返回的future在second或handler执行完后完成
+     */
+    public <T> CompletableFuture<Void> doInOrderAsync(Supplier<T> first, Consumer<T> second, Consumer<Throwable> handler) {
+        return thenAcceptAsync(supplyAsync(first), second).handle((ignored, ex) -> {
+            if (ex != null) {
+                handler.accept(unwrap(ex));
+            }
+            return null;
+        });
+    }
+
+    /*
+     * 给StreamPublisher.async这类需要Executor的地方用，队列满时同样按overflow处理
+     */
+    public Executor executor() {
+        return task -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                if (overflow == Overflow.CALLER_RUNS && !executor.isShutdown()) {
+                    task.run();
+                } else {
+                    throw e;
+                }
+            }
+        };
+    }
+
+    public int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> void submit(CompletableFuture<T> future, Supplier<? extends T> supplier) {
+        Runnable task = () -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (overflow == Overflow.CALLER_RUNS && !executor.isShutdown()) {
+                task.run();
+            } else {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    // whenComplete/handle拿到的异常可能被包了一层CompletionException
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static ThreadFactory daemonFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * channel到channel的流式Base64编解码，内存占用只和缓冲区大小有关，与输入大小无关。
+ * jdk的Base64只能整块处理数组，这里把输入切成完整的编码单元（编码时57字节的倍数，解码时4个字符的倍数）
+ * 逐块交给jdk处理，所以输出与整块编解码完全一致。
+ * 缓冲区在实例里重复使用，一个实例同一时刻只能被一个线程使用。
+ * source和target必须是阻塞的，非阻塞的SelectableChannel直接抛出IllegalArgumentException
+ *
+ * @author gongzuo.zy
+ * @version $Id: Base64Channels.java, v0.1 2026-10-18 17:10  gongzuo.zy Exp $
+ */
+public class Base64Channels {
+
+    public enum Variant {
+        BASIC, URL, MIME
+    }
+
+    // 57字节正好编码成MIME的一行76个字符，同时也是3的倍数
+    private static final int MIME_LINE_BYTES = 57;
+
+    private static final byte[] MIME_SEPARATOR = {'\r', '\n'};
+
+    private final Variant variant;
+
+    private final Base64.Encoder encoder;
+
+    private final Base64.Decoder decoder;
+
+    private final ByteBuffer in;
+
+    private final ByteBuffer out;
+
+    // 待编码的原始字节
+    private final byte[] plain;
+
+    // 待解码的base64字符
+    private final byte[] encoded;
+
+    // 编码结果
+    private final byte[] text;
+
+    public Base64Channels(Variant variant) {
+        this(variant, 1024);
+    }
+
+    /**
+     * @param variant 编码方式
+     * @param lines   每块包含的MIME行数，编码块为 57*lines 字节，解码块为 76*lines 字符
+     */
+    public Base64Channels(Variant variant, int lines) {
+        if (lines < 1) {
+            throw new IllegalArgumentException("lines must be positive: " + lines);
+        }
+        this.variant = variant;
+        switch (variant) {
+            case URL:
+                encoder = Base64.getUrlEncoder();
+                decoder = Base64.getUrlDecoder();
+                break;
+            case MIME:
+                encoder = Base64.getMimeEncoder();
+                // 非字母表字符在读入时已经过滤掉了，剩下的交给basic解码器即可
+                decoder = Base64.getDecoder();
+                break;
+            default:
+                encoder = Base64.getEncoder();
+                decoder = Base64.getDecoder();
+        }
+        plain = new byte[MIME_LINE_BYTES * lines];
+        encoded = new byte[76 * lines];
+        // MIME编码时每行多出两个字节的换行
+        text = new byte[78 * lines];
+        in = ByteBuffer.allocateDirect(encoded.length);
+        out = ByteBuffer.allocateDirect(text.length + MIME_SEPARATOR.length);
+    }
+
+    /**
+     * 编码，返回写出的字节数
+     */
+    public long encode(ReadableByteChannel source, WritableByteChannel target) throws IOException {
+        requireBlocking(source);
+        requireBlocking(target);
+        long written = 0;
+        boolean first = true;
+        int filled;
+        while ((filled = fill(source, plain)) > 0) {
+            // 只有最后一块不满，才需要一个定长的数组
+            byte[] chunk = filled == plain.length ? plain : Arrays.copyOf(plain, filled);
+            out.clear();
+            // 块之间补上MIME的换行，和整块编码时一样
+            if (variant == Variant.MIME && !first) {
+                out.put(MIME_SEPARATOR);
+            }
+            out.put(text, 0, encoder.encode(chunk, text));
+            written += flush(target);
+            first = false;
+            if (filled < plain.length) {
+                break;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 解码，返回写出的字节数。非法输入与 Base64.Decoder#decode 一样抛出IllegalArgumentException
+     */
+    public long decode(ReadableByteChannel source, WritableByteChannel target) throws IOException {
+        requireBlocking(source);
+        requireBlocking(target);
+        long written = 0;
+        int count = 0;
+        boolean padded = false;
+        boolean mime = variant == Variant.MIME;
+        in.clear();
+        while (source.read(in) >= 0) {
+            in.flip();
+            while (in.hasRemaining()) {
+                // 非MIME不需要过滤，整段拷贝
+                if (!mime) {
+                    if (padded) {
+                        throw new IllegalArgumentException("Input byte array has incorrect ending byte");
+                    }
+                    int n = Math.min(in.remaining(), encoded.length - count);
+                    in.get(encoded, count, n);
+                    count += n;
+                    if (count == encoded.length) {
+                        padded = encoded[count - 1] == '=';
+                        written += decodeChunk(encoded, target);
+                        count = 0;
+                    }
+                    continue;
+                }
+                byte b = in.get();
+                if (padded ? !isBase64(b) : b != '=' && !isBase64(b)) {
+                    continue;
+                }
+                // 整块解码时，padding之后不允许再有字符
+                if (padded) {
+                    throw new IllegalArgumentException("Input byte array has incorrect ending byte");
+                }
+                encoded[count++] = b;
+                if (count == encoded.length) {
+                    padded = encoded[count - 1] == '=';
+                    written += decodeChunk(encoded, target);
+                    count = 0;
+                }
+            }
+            in.clear();
+        }
+        if (count > 0) {
+            written += decodeChunk(Arrays.copyOf(encoded, count), target);
+        }
+        return written;
+    }
+
+    private long decodeChunk(byte[] chunk, WritableByteChannel target) throws IOException {
+        out.clear();
+        out.put(plain, 0, decoder.decode(chunk, plain));
+        return flush(target);
+    }
+
+    // 从channel读满整个数组，除非到了末尾
+    private int fill(ReadableByteChannel source, byte[] array) throws IOException {
+        int filled = 0;
+        while (filled < array.length) {
+            in.clear();
+            in.limit(Math.min(in.capacity(), array.length - filled));
+            int n = source.read(in);
+            if (n < 0) {
+                break;
+            }
+            in.flip();
+            in.get(array, filled, n);
+            filled += n;
+        }
+        return filled;
+    }
+
+    private long flush(WritableByteChannel target) throws IOException {
+        out.flip();
+        long n = out.remaining();
+        while (out.hasRemaining()) {
+            target.write(out);
+        }
+        return n;
+    }
+
+    // 非阻塞channel的read/write可能返回0，fill和flush会空转
+    private static void requireBlocking(Channel channel) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("non-blocking channel is not supported: " + channel);
+        }
+    }
+
+    private static boolean isBase64(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '+' || b == '/';
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * 内存占用有上限的收集器，用来替代大数据量下的 sorted().limit(k) 和 distinct().count()。
+ * <ul>
+ *     <li>topK：最多k个元素的堆，按需翻倍扩容，结果与 sorted(comparator).limit(k) 完全一致（相等元素保持原来的顺序）</li>
+ *     <li>approxDistinctCount：HyperLogLog估算不同元素的个数，占用 2^precision 字节，
+ *     标准误差约为 1.04/sqrt(2^precision)，默认precision=14时约0.8%</li>
+ * </ul>
+ * 两者在parallelStream下都是各线程分别收集，再合并部分结果
+ *
+ * @author gongzuo.zy
+ * @version $Id: BoundedCollectors.java, v0.1 2026-10-18 22:30  gongzuo.zy Exp $
+ */
+public class BoundedCollectors {
+
+    public static final int DEFAULT_PRECISION = 14;
+
+    private BoundedCollectors() {
+    }
+
+    /*
+     * 等价于 sorted(comparator).limit(k).collect(toList())，只保留k个元素
+     */
+    public static <T> Collector<T, ?, List<T>> topK(int k, Comparator<? super T> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        Objects.requireNonNull(comparator);
+        return Collector.of(() -> new TopK<T>(k, comparator), TopK::add, TopK::merge, TopK::toList);
+    }
+
+    public static <T> Collector<T, ?, Long> approxDistinctCount() {
+        return approxDistinctCount(DEFAULT_PRECISION);
+    }
+
+    // 用元素的hashCode，当不同元素超过数千万时32位哈希本身的碰撞会让结果偏小，这时应传入64位的hasher
+    public static <T> Collector<T, ?, Long> approxDistinctCount(int precision) {
+        return approxDistinctCount(precision, t -> t == null ? 0 : t.hashCode());
+    }
+
+    /**
+     * @param precision 4到16，寄存器个数为2^precision
+     * @param hasher    元素的哈希值，会再经过一次混淆，不要求均匀分布
+     */
+    public static <T> Collector<T, ?, Long> approxDistinctCount(int precision, ToLongFunction<? super T> hasher) {
+        Objects.requireNonNull(hasher);
+        HyperLogLog.checkPrecision(precision);
+        return Collector.<T, HyperLogLog, Long>of(() -> new HyperLogLog(precision),
+                (sketch, t) -> sketch.add(hasher.applyAsLong(t)), HyperLogLog::merge, HyperLogLog::estimate,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 大小为k的大顶堆，堆顶是当前保留的元素中最靠后的一个。
+     * 比较时先按comparator，相等再按进入的先后，保证结果稳定
+     */
+    private static final class TopK<T> {
+
+        // 每个并行分片都有一个容器，元素少时不必一开始就分配k个
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final int k;
+
+        private final Comparator<? super T> comparator;
+
+        private Object[] items;
+
+        private long[] sequences;
+
+        private int size;
+
+        private long sequence;
+
+        TopK(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            this.items = new Object[Math.min(k, INITIAL_CAPACITY)];
+            this.sequences = new long[items.length];
+        }
+
+        void add(T item) {
+            long seq = sequence++;
+            if (size < k) {
+                ensureCapacity(size + 1);
+                items[size] = item;
+                sequences[size] = seq;
+                siftUp(size++);
+            } else if (k > 0 && compare(item, seq, 0) < 0) {
+                items[0] = item;
+                sequences[0] = seq;
+                siftDown(0);
+            }
+        }
+
+        // 左边的元素都在右边之前，按有序归并取前k个，重新编号后仍然保持先后关系
+        TopK<T> merge(TopK<T> right) {
+            List<T> a = toList();
+            List<T> b = right.toList();
+            ensureCapacity((int) Math.min(k, (long) a.size() + b.size()));
+            size = 0;
+            sequence = 0;
+            int i = 0;
+            int j = 0;
+            while (size < k && (i < a.size() || j < b.size())) {
+                // 相等时取左边
+                boolean left = j == b.size() || (i < a.size() && comparator.compare(a.get(i), b.get(j)) <= 0);
+                items[size] = left ? a.get(i++) : b.get(j++);
+                sequences[size] = sequence++;
+                size++;
+            }
+            // 升序数组倒过来就是大顶堆
+            reverse();
+            return this;
+        }
+
+        // 容量翻倍，最多到k
+        private void ensureCapacity(int capacity) {
+            if (capacity > items.length) {
+                int grown = (int) Math.min(k, Math.max(capacity, (long) items.length << 1));
+                items = Arrays.copyOf(items, grown);
+                sequences = Arrays.copyOf(sequences, grown);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> toList() {
+            List<Integer> order = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                order.add(i);
+            }
+            order.sort((x, y) -> compare((T) items[x], sequences[x], y));
+            List<T> result = new ArrayList<>(size);
+            for (int index : order) {
+                result.add((T) items[index]);
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(T item, long seq, int index) {
+            int c = comparator.compare(item, (T) items[index]);
+            return c != 0 ? c : Long.compare(seq, sequences[index]);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (compare((T) items[index], sequences[index], parent) <= 0) {
+                    break;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void siftDown(int index) {
+            while (true) {
+                int largest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && compare((T) items[left], sequences[left], largest) > 0) {
+                    largest = left;
+                }
+                if (right < size && compare((T) items[right], sequences[right], largest) > 0) {
+                    largest = right;
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Object item = items[i];
+            items[i] = items[j];
+            items[j] = item;
+            long seq = sequences[i];
+            sequences[i] = sequences[j];
+            sequences[j] = seq;
+        }
+
+        private void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                swap(i, j);
+            }
+        }
+    }
+
+    /**
+     * HyperLogLog计数器，可以单独使用，也可以合并多个流的结果
+     */
+    public static final class HyperLogLog {
+
+        private final int precision;
+
+        // 每个寄存器记录落到该桶的哈希里，前导零个数+1的最大值
+        private final byte[] registers;
+
+        public HyperLogLog(int precision) {
+            checkPrecision(precision);
+            this.precision = precision;
+            this.registers = new byte[1 << precision];
+        }
+
+        public void add(long hash) {
+            long h = mix(hash);
+            int index = (int) (h >>> (64 - precision));
+            // 剩下的位里第一个1的位置；最低位补1保证不会超过 64-precision+1
+            int rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+        }
+
+        public HyperLogLog merge(HyperLogLog other) {
+            if (other.precision != precision) {
+                throw new IllegalArgumentException("precision mismatch: " + precision + " vs " + other.precision);
+            }
+            for (int i = 0; i < registers.length; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+            return this;
+        }
+
+        public long estimate() {
+            int m = registers.length;
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            double estimate = alpha(m) * m * m / sum;
+            // 小基数时用线性计数修正；64位哈希不需要大基数修正
+            if (estimate <= 2.5 * m && zeros > 0) {
+                estimate = m * Math.log((double) m / zeros);
+            }
+            return Math.round(estimate);
+        }
+
+        static void checkPrecision(int precision) {
+            if (precision < 4 || precision > 16) {
+                throw new IllegalArgumentException("precision must be between 4 and 16: " + precision);
+            }
+        }
+
+        private static double alpha(int m) {
+            switch (m) {
+                case 16:
+                    return 0.673;
+                case 32:
+                    return 0.697;
+                case 64:
+                    return 0.709;
+                default:
+                    return 0.7213 / (1 + 1.079 / m);
+            }
+        }
+
+        // murmur3的fmix64，让hashCode这种低质量的哈希也能均匀分布在64位上
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
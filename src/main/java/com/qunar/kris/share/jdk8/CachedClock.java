@@ -0,0 +1,186 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 后台线程按固定精度（比如1ms）刷新的Clock。millis()/instant()只读一个volatile字段，
+ * 不调用System.currentTimeMillis，适合每秒给几百万个事件打时间戳；代价是读到的时间最多落后一个精度。
+ * 刷新出来的时间不会倒退：系统时间被往回调时停在原来的值，等系统时间追上来。
+ *
+ * <pre>
+ *   Clock clock = CachedClock.shared().withZone(ZoneId.systemDefault());
+ *   LocalDateTime now = LocalDateTime.now(clock);
+ *   LocalDate today = CachedClock.shared().withZone(zone).today();
+ * </pre>
+ *
+ * withZone返回的时钟共用同一个后台线程和按时区缓存的today；自己create的要close，shared不能close
+ *
+ * @author gongzuo.zy
+ * @version $Id: CachedClock.java, v0.1 2026-10-19 05:00  gongzuo.zy Exp $
+ */
+public class CachedClock extends Clock implements AutoCloseable {
+
+    private static final CachedClock SHARED = create(ZoneOffset.UTC, Duration.ofMillis(1));
+
+    private final Ticker ticker;
+
+    private final ZoneId zone;
+
+    private CachedClock(Ticker ticker, ZoneId zone) {
+        this.ticker = ticker;
+        this.zone = zone;
+    }
+
+    /**
+     * 精度1ms、UTC时区的共享时钟
+     */
+    public static CachedClock shared() {
+        return SHARED;
+    }
+
+    public static CachedClock create(ZoneId zone, Duration resolution) {
+        Objects.requireNonNull(zone);
+        long nanos = resolution.toNanos();
+        if (nanos <= 0) {
+            throw new IllegalArgumentException("resolution must be positive: " + resolution);
+        }
+        Ticker ticker = new Ticker(nanos);
+        ticker.start();
+        return new CachedClock(ticker, zone);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public CachedClock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new CachedClock(ticker, zone);
+    }
+
+    @Override
+    public long millis() {
+        return ticker.millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return ticker.instant;
+    }
+
+    public Duration resolution() {
+        return Duration.ofNanos(ticker.resolutionNanos);
+    }
+
+    /**
+     * 这个时区的今天，等价于LocalDate.now(this)；只在跨过0点时重新计算
+     */
+    public LocalDate today() {
+        long now = ticker.millis;
+        Today current = ticker.today.get(zone);
+        if (current == null || now < current.startMillis || now >= current.endMillis) {
+            current = new Today(LocalDate.now(this), zone);
+            ticker.today.put(zone, current);
+        }
+        return current.date;
+    }
+
+    /*
+     * 停止后台线程，所有共用这个线程的时钟都停在最后一次刷新的时间
+     */
+    @Override
+    public void close() {
+        if (ticker == SHARED.ticker) {
+            throw new IllegalStateException("the shared clock cannot be closed");
+        }
+        ticker.running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof CachedClock) {
+            CachedClock other = (CachedClock) obj;
+            return ticker == other.ticker && zone.equals(other.zone);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * ticker.hashCode() + zone.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CachedClock[" + zone + "," + resolution() + "]";
+    }
+
+    private static final class Today {
+
+        private final LocalDate date;
+
+        private final long startMillis;
+
+        private final long endMillis;
+
+        // atStartOfDay按时区规则处理夏令时，0点不存在的日子从当天第一个有效时刻开始
+        Today(LocalDate date, ZoneId zone) {
+            this.date = date;
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
+    private static final class Ticker extends Thread {
+
+        private final long resolutionNanos;
+
+        private volatile long millis;
+
+        private volatile Instant instant;
+
+        private volatile boolean running = true;
+
+        // 每个时区的当天和起止毫秒，过了边界才重新计算；withZone每次返回新对象，所以缓存放在这里
+        private final ConcurrentMap<ZoneId, Today> today = new ConcurrentHashMap<>();
+
+        Ticker(long resolutionNanos) {
+            super("cached-clock-ticker");
+            this.resolutionNanos = resolutionNanos;
+            setDaemon(true);
+            tick();
+        }
+
+        private void tick() {
+            long now = System.currentTimeMillis();
+            // 只有毫秒变了才创建新的Instant
+            if (now > millis) {
+                instant = Instant.ofEpochMilli(now);
+                millis = now;
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                LockSupport.parkNanos(this, resolutionNanos);
+                tick();
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DateTimeFormatter注册表以及定长数字日期的快速解析。
+ * DateTimeFormatter本身是不可变、线程安全的，但ofPattern每次都要重新编译pattern，
+ * 这里按pattern和locale缓存编译好的formatter。
+ * 对于 MM dd yyyy、BASIC_ISO_DATE 这种只有数字和分隔符的定长格式，直接从字符或字节里算出epochDay，
+ * 不经过Parsed对象；遇到任何不常规的输入都退回LocalDate.parse，保证结果（包括异常）与其一致
+ *
+ * @author gongzuo.zy
+ * @version $Id: DateTimeFormatters.java, v0.1 2026-10-18 16:30  gongzuo.zy Exp $
+ */
+public class DateTimeFormatters {
+
+    private static final ConcurrentMap<Locale, ConcurrentMap<String, DateTimeFormatter>> FORMATTERS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, FixedDateLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    // 不是定长数字格式的pattern也缓存下来，避免重复分析
+    private static final FixedDateLayout NOT_FIXED = new FixedDateLayout("", -1, -1, -1, false, null);
+
+    // BASIC_ISO_DATE是yyyyMMdd（YEAR而不是YEAR_OF_ERA），并且是STRICT解析
+    private static final FixedDateLayout BASIC_ISO = new FixedDateLayout("uuuuMMdd", 0, 4, 6, true, DateTimeFormatter.BASIC_ISO_DATE);
+
+    private DateTimeFormatters() {
+    }
+
+    public static DateTimeFormatter ofPattern(String pattern) {
+        return ofPattern(pattern, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    public static DateTimeFormatter ofPattern(String pattern, Locale locale) {
+        return FORMATTERS.computeIfAbsent(locale, l -> new ConcurrentHashMap<>())
+                .computeIfAbsent(pattern, p -> DateTimeFormatter.ofPattern(p, locale));
+    }
+
+    /*
+     * 等价于 LocalDate.parse(text, ofPattern(pattern)).toEpochDay()
+     */
+    public static long parseEpochDay(CharSequence text, String pattern) {
+        FixedDateLayout layout = LAYOUTS.computeIfAbsent(pattern, DateTimeFormatters::analyze);
+        if (layout == NOT_FIXED) {
+            return LocalDate.parse(text, ofPattern(pattern)).toEpochDay();
+        }
+        return layout.parse(text);
+    }
+
+    public static long parseEpochDay(ByteBuffer buffer, int offset, int length, String pattern) {
+        FixedDateLayout layout = LAYOUTS.computeIfAbsent(pattern, DateTimeFormatters::analyze);
+        if (layout == NOT_FIXED) {
+            return LocalDate.parse(ascii(buffer, offset, length), ofPattern(pattern)).toEpochDay();
+        }
+        return layout.parse(buffer, offset, length);
+    }
+
+    /*
+     * 等价于 LocalDate.parse(text, DateTimeFormatter.BASIC_ISO_DATE).toEpochDay()
+     */
+    public static long parseBasicIsoEpochDay(CharSequence text) {
+        return BASIC_ISO.parse(text);
+    }
+
+    public static long parseBasicIsoEpochDay(ByteBuffer buffer, int offset, int length) {
+        return BASIC_ISO.parse(buffer, offset, length);
+    }
+
+    /*
+     * 只接受 yyyy/uuuu、MM、dd 各一次，其余都是非字母的分隔符，这样每个字段在文本里的位置都是固定的
+     */
+    private static FixedDateLayout analyze(String pattern) {
+        int year = -1;
+        int month = -1;
+        int day = -1;
+        boolean prolepticYear = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (!Character.isLetter(c)) {
+                if ("'[]{}#".indexOf(c) >= 0) {
+                    return NOT_FIXED;
+                }
+                i++;
+                continue;
+            }
+            int count = 1;
+            while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            if ((c == 'y' || c == 'u') && count == 4 && year < 0) {
+                year = i;
+                prolepticYear = c == 'u';
+            } else if (c == 'M' && count == 2 && month < 0) {
+                month = i;
+            } else if (c == 'd' && count == 2 && day < 0) {
+                day = i;
+            } else {
+                return NOT_FIXED;
+            }
+            i += count;
+        }
+        if (year < 0 || month < 0 || day < 0) {
+            return NOT_FIXED;
+        }
+        return new FixedDateLayout(pattern, year, month, day, prolepticYear, ofPattern(pattern));
+    }
+
+    // 与LocalDate.toEpochDay相同的算法
+    static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeap(year)) {
+                total--;
+            }
+        }
+        return total - 719528;
+    }
+
+    static boolean isLeap(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeap(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static String ascii(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static class FixedDateLayout {
+
+        // 非字段的位置就是分隔符，输入必须与之一致
+        private final String pattern;
+
+        private final int length;
+
+        private final int year;
+
+        private final int month;
+
+        private final int day;
+
+        // true表示YEAR(uuuu)，false表示YEAR_OF_ERA(yyyy)，后者不能为0
+        private final boolean prolepticYear;
+
+        // STRICT时日期越界直接失败，SMART时29-31日会被截到月末
+        private final boolean strict;
+
+        private final DateTimeFormatter formatter;
+
+        FixedDateLayout(String pattern, int year, int month, int day, boolean prolepticYear, DateTimeFormatter formatter) {
+            this.pattern = pattern;
+            this.length = pattern.length();
+            this.year = year;
+            this.month = month;
+            this.day = day;
+            this.prolepticYear = prolepticYear;
+            this.formatter = formatter;
+            this.strict = formatter != null && formatter.getResolverStyle() == ResolverStyle.STRICT;
+        }
+
+        long parse(CharSequence text) {
+            if (text.length() == length) {
+                int y = digits(text, year, 4);
+                int m = digits(text, month, 2);
+                int d = digits(text, day, 2);
+                if (y >= 0 && m >= 0 && d >= 0 && literalsMatch(text)) {
+                    long epochDay = resolve(y, m, d);
+                    if (epochDay != Long.MIN_VALUE) {
+                        return epochDay;
+                    }
+                }
+            }
+            return LocalDate.parse(text, formatter).toEpochDay();
+        }
+
+        long parse(ByteBuffer buffer, int offset, int length) {
+            if (length == this.length) {
+                int y = digits(buffer, offset + year, 4);
+                int m = digits(buffer, offset + month, 2);
+                int d = digits(buffer, offset + day, 2);
+                if (y >= 0 && m >= 0 && d >= 0 && literalsMatch(buffer, offset)) {
+                    long epochDay = resolve(y, m, d);
+                    if (epochDay != Long.MIN_VALUE) {
+                        return epochDay;
+                    }
+                }
+            }
+            return LocalDate.parse(ascii(buffer, offset, length), formatter).toEpochDay();
+        }
+
+        // 返回Long.MIN_VALUE表示需要交给LocalDate.parse处理（通常是要抛异常）
+        private long resolve(int y, int m, int d) {
+            if ((!prolepticYear && y == 0) || m < 1 || m > 12 || d < 1 || d > 31) {
+                return Long.MIN_VALUE;
+            }
+            int monthLength = lengthOfMonth(y, m);
+            if (d > monthLength) {
+                if (strict) {
+                    return Long.MIN_VALUE;
+                }
+                d = monthLength;
+            }
+            return toEpochDay(y, m, d);
+        }
+
+        private boolean literalsMatch(CharSequence text) {
+            for (int i = 0; i < length; i++) {
+                if (!isField(i) && text.charAt(i) != pattern.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean literalsMatch(ByteBuffer buffer, int offset) {
+            for (int i = 0; i < length; i++) {
+                if (!isField(i) && buffer.get(offset + i) != pattern.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isField(int i) {
+            return (i >= year && i < year + 4) || (i >= month && i < month + 2) || (i >= day && i < day + 2);
+        }
+
+        private static int digits(CharSequence text, int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private static int digits(ByteBuffer buffer, int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+/**
+ * Reactive Streams的四个接口，与jdk9的java.util.concurrent.Flow签名相同，升级后只需要换import。
+ * 约定（简述）：
+ * <ul>
+ *     <li>subscribe后publisher先调用onSubscribe，之后onNext的次数不超过request的总数</li>
+ *     <li>onNext/onError/onComplete串行调用，onError和onComplete最多一个，之后不再有任何信号</li>
+ *     <li>request(n)的n必须大于0，否则publisher以IllegalArgumentException调用onError；cancel之后可能还会收到少量信号</li>
+ * </ul>
+ *
+ * @author gongzuo.zy
+ * @version $Id: Flow.java, v0.1 2026-10-19 08:30  gongzuo.zy Exp $
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+
+        void request(long n);
+
+        void cancel();
+    }
+
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+
+    // 与jdk9的Flow.defaultBufferSize()相同
+    public static int defaultBufferSize() {
+        return 256;
+    }
+}
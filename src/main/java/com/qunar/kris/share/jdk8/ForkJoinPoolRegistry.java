@@ -0,0 +1,227 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按业务（workload）隔离的ForkJoinPool，让parallelStream不再共用commonPool。
+ * 并行流的终结操作在哪个ForkJoinPool的线程里调用，拆分出来的子任务就在哪个pool里执行，
+ * 所以只要把整条流水线提交到指定的pool即可：
+ *
+ * <pre>
+ *   registry.register("report", 2);
+ *   long count = registry.run("report", () -> rows.parallelStream().filter(...).count());
+ *   // CompletableFuture也可以指定同一个pool
+ *   CompletableFuture.supplyAsync(task, registry.pool("report"));
+ * </pre>
+ *
+ * 每个workload的并行度在注册时确定，stats返回队列长度、窃取次数等指标
+ *
+ * @author gongzuo.zy
+ * @version $Id: ForkJoinPoolRegistry.java, v0.1 2026-10-19 01:00  gongzuo.zy Exp $
+ */
+public class ForkJoinPoolRegistry implements AutoCloseable {
+
+    private final ConcurrentMap<String, Workload> workloads = new ConcurrentHashMap<>();
+
+    /*
+     * 注册一个workload；重复注册相同的并行度直接返回已有的pool，并行度不同则抛出IllegalStateException
+     */
+    public ForkJoinPool register(String name, int parallelism) {
+        if (parallelism < 1 || parallelism > 0x7fff) {
+            throw new IllegalArgumentException("parallelism must be between 1 and 32767: " + parallelism);
+        }
+        Workload workload = workloads.computeIfAbsent(name, n -> new Workload(n, parallelism));
+        if (workload.pool.getParallelism() != parallelism) {
+            throw new IllegalStateException("workload " + name + " already registered with parallelism "
+                    + workload.pool.getParallelism());
+        }
+        return workload.pool;
+    }
+
+    public ForkJoinPool pool(String name) {
+        return workload(name).pool;
+    }
+
+    /**
+     * 在workload的pool里执行pipeline并等待结果，pipeline里的parallelStream都在这个pool里拆分执行。
+     * 已经在该pool的线程里时直接执行，避免嵌套提交占住线程
+     */
+    public <T> T run(String name, Supplier<T> pipeline) {
+        Workload workload = workload(name);
+        long start = System.nanoTime();
+        try {
+            Thread current = Thread.currentThread();
+            if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == workload.pool) {
+                return pipeline.get();
+            }
+            return workload.pool.submit(pipeline::get).join();
+        } finally {
+            workload.runs.increment();
+            workload.nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public void run(String name, Runnable pipeline) {
+        run(name, () -> {
+            pipeline.run();
+            return null;
+        });
+    }
+
+    public Stats stats(String name) {
+        return workload(name).stats();
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Stats> result = new LinkedHashMap<>();
+        workloads.values().stream().sorted((a, b) -> a.name.compareTo(b.name)).forEach(w -> result.put(w.name, w.stats()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    // 关闭并移除workload，已经提交的任务会继续执行完
+    public void shutdown(String name) {
+        Workload workload = workloads.remove(name);
+        if (workload != null) {
+            workload.pool.shutdown();
+        }
+    }
+
+    @Override
+    public void close() {
+        workloads.keySet().forEach(this::shutdown);
+    }
+
+    private Workload workload(String name) {
+        Workload workload = workloads.get(name);
+        if (workload == null) {
+            throw new IllegalArgumentException("unknown workload: " + name);
+        }
+        return workload;
+    }
+
+    private static final class Workload {
+
+        private final String name;
+
+        private final ForkJoinPool pool;
+
+        private final LongAdder runs = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+
+        Workload(String name, int parallelism) {
+            this.name = name;
+            this.pool = new ForkJoinPool(parallelism, workerFactory(name), null, false);
+        }
+
+        Stats stats() {
+            return new Stats(name, pool.getParallelism(), pool.getPoolSize(), pool.getActiveThreadCount(),
+                    pool.getQueuedSubmissionCount(), pool.getQueuedTaskCount(), pool.getStealCount(),
+                    runs.sum(), nanos.sum());
+        }
+
+        // 线程名带上workload，jstack里一眼就能看出是哪个业务
+        private static ForkJoinPool.ForkJoinWorkerThreadFactory workerFactory(String name) {
+            AtomicInteger counter = new AtomicInteger();
+            return pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("fj-" + name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    public static final class Stats {
+
+        private final String name;
+
+        private final int parallelism;
+
+        private final int poolSize;
+
+        private final int activeThreads;
+
+        private final int queuedSubmissions;
+
+        private final long queuedTasks;
+
+        private final long steals;
+
+        private final long runs;
+
+        private final long nanos;
+
+        Stats(String name, int parallelism, int poolSize, int activeThreads, int queuedSubmissions, long queuedTasks,
+              long steals, long runs, long nanos) {
+            this.name = name;
+            this.parallelism = parallelism;
+            this.poolSize = poolSize;
+            this.activeThreads = activeThreads;
+            this.queuedSubmissions = queuedSubmissions;
+            this.queuedTasks = queuedTasks;
+            this.steals = steals;
+            this.runs = runs;
+            this.nanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        // 还没有被任何线程取走的外部提交
+        public int getQueuedSubmissions() {
+            return queuedSubmissions;
+        }
+
+        // 各工作线程队列里fork出来的子任务
+        public long getQueuedTasks() {
+            return queuedTasks;
+        }
+
+        public long getSteals() {
+            return steals;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        // run的累计耗时，包括排队时间
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s parallelism=%d size=%d active=%d submissions=%d tasks=%d steals=%d runs=%d avg=%.3fms",
+                    name, parallelism, poolSize, activeThreads, queuedSubmissions, queuedTasks, steals, runs,
+                    runs == 0 ? 0 : nanos / 1e6 / runs);
+        }
+    }
+}
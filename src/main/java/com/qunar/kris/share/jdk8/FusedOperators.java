@@ -0,0 +1,374 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * 基本类型函数的融合组合，用来替代很深的 andThen/compose 链。
+ * andThen每一层都是同一个lambda类，里面对下一层的调用点被所有链共用，层数一多JIT就不再内联（递归内联也有层数限制），
+ * Function&lt;Integer, Integer&gt;还要在每一层装箱。这里把整条链合成一个对象：
+ * <ul>
+ *     <li>连续的add、multiply合并成一次 a*x+b（int/long溢出是模2^32/2^64运算，合并后的结果完全一致）</li>
+ *     <li>其余的函数用MethodHandle的filterReturnValue串成一个句柄，每一级的接收者都是绑定的常量</li>
+ *     <li>每条链生成一个单独的类，句柄放在它的static final字段里。JIT把static final的句柄当作常量，
+ *     invokeExact和每一级都能内联进这个类的applyAsInt；如果所有链共用一个类、句柄放在实例字段里，
+ *     invokeExact就是所有链共用的一个调用点，只能间接跳转过去</li>
+ * </ul>
+ * 生成的类由每条链自己的ClassLoader定义，链不再被引用时和类一起回收
+ *
+ * <pre>
+ *   // time2.compose(sqrt)
+ *   IntUnaryOperator f = FusedOperators.intChain().then(e -> e * e).multiply(2).build();
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: FusedOperators.java, v0.1 2026-10-19 03:00  gongzuo.zy Exp $
+ */
+public class FusedOperators {
+
+    private static final MethodHandle INT_APPLY;
+
+    private static final MethodHandle INT_AFFINE;
+
+    private static final MethodHandle LONG_APPLY;
+
+    private static final MethodHandle LONG_AFFINE;
+
+    private static final String CHAIN_CLASS = "com/qunar/kris/share/jdk8/FusedOperators$Chain";
+
+    private static final AtomicLong CHAIN_IDS = new AtomicLong();
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            INT_APPLY = lookup.findVirtual(IntUnaryOperator.class, "applyAsInt", MethodType.methodType(int.class, int.class));
+            INT_AFFINE = lookup.findStatic(FusedOperators.class, "affine",
+                    MethodType.methodType(int.class, int.class, int.class, int.class));
+            LONG_APPLY = lookup.findVirtual(LongUnaryOperator.class, "applyAsLong", MethodType.methodType(long.class, long.class));
+            LONG_AFFINE = lookup.findStatic(FusedOperators.class, "affine",
+                    MethodType.methodType(long.class, long.class, long.class, long.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private FusedOperators() {
+    }
+
+    public static IntChain intChain() {
+        return new IntChain();
+    }
+
+    public static LongChain longChain() {
+        return new LongChain();
+    }
+
+    private static int affine(int a, int b, int x) {
+        return a * x + b;
+    }
+
+    private static long affine(long a, long b, long x) {
+        return a * x + b;
+    }
+
+    /*
+     * 生成下面这个类并创建实例，isLong时把int换成long：
+     *
+     * public final class FusedOperators$ChainN implements IntUnaryOperator {
+     *     private static final MethodHandle CHAIN = (MethodHandle) ((Supplier) FusedOperators$ChainN.class.getClassLoader()).get();
+     *
+     *     public int applyAsInt(int operand) {
+     *         return (int) CHAIN.invokeExact(operand);
+     *     }
+     * }
+     *
+     * 句柄通过ChainLoader.get传进去，不需要对外公开任何方法；函数本身只会抛出非受检异常
+     */
+    private static Object spin(MethodHandle chain, boolean isLong) {
+        String name = CHAIN_CLASS + CHAIN_IDS.incrementAndGet();
+        String descriptor = isLong ? "(J)J" : "(I)I";
+        ClassWriter cw = new ClassWriter();
+        cw.u4(0xCAFEBABE).u2(0).u2(52);
+        // 常量池，下标从1开始
+        cw.u2(36);
+        cw.utf8(name).classRef(1);                                                  // 1, 2
+        cw.utf8("java/lang/Object").classRef(3);                                    // 3, 4
+        cw.utf8(isLong ? "java/util/function/LongUnaryOperator" : "java/util/function/IntUnaryOperator")
+                .classRef(5);                                                       // 5, 6
+        cw.utf8("CHAIN").utf8("Ljava/lang/invoke/MethodHandle;").nameAndType(7, 8)
+                .memberRef(9, 2, 9);                                                // 7-10 CHAIN
+        cw.utf8("java/lang/invoke/MethodHandle").classRef(11);                      // 11, 12
+        cw.utf8("invokeExact").utf8(descriptor).nameAndType(13, 14).memberRef(10, 12, 15);   // 13-16
+        cw.utf8("<init>").utf8("()V").nameAndType(17, 18).memberRef(10, 4, 19);     // 17-20 Object.<init>
+        cw.utf8("<clinit>").utf8(isLong ? "applyAsLong" : "applyAsInt").utf8("Code");      // 21-23
+        cw.utf8("java/lang/Class").classRef(24);                                    // 24, 25
+        cw.utf8("getClassLoader").utf8("()Ljava/lang/ClassLoader;").nameAndType(26, 27)
+                .memberRef(10, 25, 28);                                             // 26-29
+        cw.utf8("java/util/function/Supplier").classRef(30);                        // 30, 31
+        cw.utf8("get").utf8("()Ljava/lang/Object;").nameAndType(32, 33).memberRef(11, 31, 34);  // 32-35
+        // public final super，父类Object，实现一个接口
+        cw.u2(0x0031).u2(2).u2(4).u2(1).u2(6);
+        // private static final MethodHandle CHAIN
+        cw.u2(1).u2(0x001A).u2(7).u2(8).u2(0);
+        cw.u2(3);
+        // public <init>()：aload_0; invokespecial Object.<init>; return
+        cw.method(0x0001, 17, 18, 1, 1, 0x2A, 0xB7, 0, 20, 0xB1);
+        // static <clinit>()：ldc this; invokevirtual getClassLoader; checkcast Supplier; invokeinterface get;
+        // checkcast MethodHandle; putstatic CHAIN; return
+        cw.method(0x0008, 21, 18, 1, 0, 0x12, 2, 0xB6, 0, 29, 0xC0, 0, 31, 0xB9, 0, 35, 1, 0, 0xC0, 0, 12,
+                0xB3, 0, 10, 0xB1);
+        // public applyAsInt(int)：getstatic CHAIN; iload_1; invokevirtual invokeExact; ireturn
+        if (isLong) {
+            cw.method(0x0001, 22, 14, 3, 3, 0xB2, 0, 10, 0x1F, 0xB6, 0, 16, 0xAD);
+        } else {
+            cw.method(0x0001, 22, 14, 2, 2, 0xB2, 0, 10, 0x1B, 0xB6, 0, 16, 0xAC);
+        }
+        // 没有类属性
+        cw.u2(0);
+        return new ChainLoader(chain).newInstance(name.replace('/', '.'), cw.toByteArray());
+    }
+
+    /**
+     * 按调用顺序添加的int函数链，build之后可以继续添加，不影响已经生成的函数
+     */
+    public static final class IntChain {
+
+        // IntUnaryOperator，或者 int[]{a, b} 表示 a*x+b
+        private final List<Object> stages = new ArrayList<>();
+
+        private IntChain() {
+        }
+
+        public IntChain then(IntUnaryOperator operator) {
+            stages.add(Objects.requireNonNull(operator));
+            return this;
+        }
+
+        public IntChain add(int value) {
+            return affine(1, value);
+        }
+
+        public IntChain multiply(int value) {
+            return affine(value, 0);
+        }
+
+        // 先乘a再加b
+        public IntChain affine(int a, int b) {
+            int last = stages.size() - 1;
+            if (last >= 0 && stages.get(last) instanceof int[]) {
+                int[] previous = (int[]) stages.get(last);
+                // a*(a0*x+b0)+b
+                stages.set(last, new int[]{a * previous[0], a * previous[1] + b});
+            } else {
+                stages.add(new int[]{a, b});
+            }
+            return this;
+        }
+
+        public IntUnaryOperator build() {
+            if (stages.isEmpty()) {
+                return IntUnaryOperator.identity();
+            }
+            if (stages.size() == 1) {
+                Object stage = stages.get(0);
+                if (stage instanceof IntUnaryOperator) {
+                    return (IntUnaryOperator) stage;
+                }
+                int[] affine = (int[]) stage;
+                return new IntAffine(affine[0], affine[1]);
+            }
+            MethodHandle chain = null;
+            for (Object stage : stages) {
+                MethodHandle handle = stage instanceof IntUnaryOperator
+                        ? INT_APPLY.bindTo(stage)
+                        : MethodHandles.insertArguments(INT_AFFINE, 0, ((int[]) stage)[0], ((int[]) stage)[1]);
+                chain = chain == null ? handle : MethodHandles.filterReturnValue(chain, handle);
+            }
+            return (IntUnaryOperator) spin(chain, false);
+        }
+    }
+
+    public static final class LongChain {
+
+        private final List<Object> stages = new ArrayList<>();
+
+        private LongChain() {
+        }
+
+        public LongChain then(LongUnaryOperator operator) {
+            stages.add(Objects.requireNonNull(operator));
+            return this;
+        }
+
+        public LongChain add(long value) {
+            return affine(1, value);
+        }
+
+        public LongChain multiply(long value) {
+            return affine(value, 0);
+        }
+
+        public LongChain affine(long a, long b) {
+            int last = stages.size() - 1;
+            if (last >= 0 && stages.get(last) instanceof long[]) {
+                long[] previous = (long[]) stages.get(last);
+                stages.set(last, new long[]{a * previous[0], a * previous[1] + b});
+            } else {
+                stages.add(new long[]{a, b});
+            }
+            return this;
+        }
+
+        public LongUnaryOperator build() {
+            if (stages.isEmpty()) {
+                return LongUnaryOperator.identity();
+            }
+            if (stages.size() == 1) {
+                Object stage = stages.get(0);
+                if (stage instanceof LongUnaryOperator) {
+                    return (LongUnaryOperator) stage;
+                }
+                long[] affine = (long[]) stage;
+                return new LongAffine(affine[0], affine[1]);
+            }
+            MethodHandle chain = null;
+            for (Object stage : stages) {
+                MethodHandle handle = stage instanceof LongUnaryOperator
+                        ? LONG_APPLY.bindTo(stage)
+                        : MethodHandles.insertArguments(LONG_AFFINE, 0, ((long[]) stage)[0], ((long[]) stage)[1]);
+                chain = chain == null ? handle : MethodHandles.filterReturnValue(chain, handle);
+            }
+            return (LongUnaryOperator) spin(chain, true);
+        }
+    }
+
+    private static final class IntAffine implements IntUnaryOperator {
+
+        private final int a;
+
+        private final int b;
+
+        IntAffine(int a, int b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public int applyAsInt(int operand) {
+            return a * operand + b;
+        }
+    }
+
+    private static final class LongAffine implements LongUnaryOperator {
+
+        private final long a;
+
+        private final long b;
+
+        LongAffine(long a, long b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public long applyAsLong(long operand) {
+            return a * operand + b;
+        }
+    }
+
+    /**
+     * 每条链一个，生成的类通过Supplier接口从这里取句柄
+     */
+    private static final class ChainLoader extends ClassLoader implements Supplier<Object> {
+
+        private final MethodHandle chain;
+
+        ChainLoader(MethodHandle chain) {
+            super(FusedOperators.class.getClassLoader());
+            this.chain = chain;
+        }
+
+        @Override
+        public Object get() {
+            return chain;
+        }
+
+        Object newInstance(String name, byte[] bytes) {
+            try {
+                return defineClass(name, bytes, 0, bytes.length).newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 只够写上面那一个类的class文件
+     */
+    private static final class ClassWriter {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassWriter u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        ClassWriter u4(int value) {
+            return u2(value >>> 16).u2(value & 0xFFFF);
+        }
+
+        ClassWriter utf8(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            bytes.write(1);
+            u2(utf8.length);
+            bytes.write(utf8, 0, utf8.length);
+            return this;
+        }
+
+        ClassWriter classRef(int name) {
+            bytes.write(7);
+            return u2(name);
+        }
+
+        ClassWriter nameAndType(int name, int descriptor) {
+            bytes.write(12);
+            return u2(name).u2(descriptor);
+        }
+
+        // tag为9（字段）、10（方法）或11（接口方法）
+        ClassWriter memberRef(int tag, int owner, int nameAndType) {
+            bytes.write(tag);
+            return u2(owner).u2(nameAndType);
+        }
+
+        // 只有一个Code属性，没有异常表，没有分支所以也不需要StackMapTable
+        ClassWriter method(int access, int name, int descriptor, int maxStack, int maxLocals, int... code) {
+            u2(access).u2(name).u2(descriptor).u2(1);
+            u2(23).u4(12 + code.length).u2(maxStack).u2(maxLocals).u4(code.length);
+            for (int b : code) {
+                bytes.write(b);
+            }
+            return u2(0).u2(0);
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
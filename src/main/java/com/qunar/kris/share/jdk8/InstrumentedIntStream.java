@@ -0,0 +1,259 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.IntSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * InstrumentedStreams.of返回的IntStream，与InstrumentedStream共用同一次执行的统计
+ *
+ * @author gongzuo.zy
+ * @version $Id: InstrumentedIntStream.java, v0.1 2026-10-18 23:20  gongzuo.zy Exp $
+ */
+class InstrumentedIntStream implements IntStream {
+
+    private final IntStream delegate;
+
+    private final InstrumentedStreams.Run run;
+
+    InstrumentedIntStream(IntStream delegate, InstrumentedStreams.Run run) {
+        this.delegate = delegate;
+        this.run = run;
+    }
+
+    private IntStream wrap(IntStream stream) {
+        return new InstrumentedIntStream(stream, run);
+    }
+
+    private <R> R terminal(String operation, Function<IntStream, R> action) {
+        InstrumentedStreams.Stage stage = run.stage(operation);
+        return run.terminal(stage, () -> action.apply(delegate.peek(stage.countIntIn())));
+    }
+
+    @Override
+    public IntStream filter(IntPredicate predicate) {
+        return wrap(delegate.filter(run.stage("filter").filterInt(predicate)));
+    }
+
+    @Override
+    public IntStream map(IntUnaryOperator mapper) {
+        return wrap(delegate.map(run.stage("map").mapInt(mapper)));
+    }
+
+    @Override
+    public <U> Stream<U> mapToObj(IntFunction<? extends U> mapper) {
+        return new InstrumentedStream<>(delegate.mapToObj(run.stage("mapToObj").<U>mapToObj(mapper)), run);
+    }
+
+    @Override
+    public LongStream mapToLong(IntToLongFunction mapper) {
+        return delegate.mapToLong(run.stage("mapToLong").mapIntToLong(mapper)).onClose(run::complete);
+    }
+
+    @Override
+    public DoubleStream mapToDouble(IntToDoubleFunction mapper) {
+        return delegate.mapToDouble(run.stage("mapToDouble").mapIntToDouble(mapper)).onClose(run::complete);
+    }
+
+    @Override
+    public IntStream flatMap(IntFunction<? extends IntStream> mapper) {
+        InstrumentedStreams.Stage stage = run.stage("flatMap");
+        return wrap(delegate.flatMap(stage.<IntStream>timedInt(mapper)).peek(stage.countIntOut()));
+    }
+
+    @Override
+    public IntStream distinct() {
+        InstrumentedStreams.Stage stage = run.stage("distinct");
+        return wrap(delegate.peek(stage.countIntIn()).distinct().peek(stage.countIntOut()));
+    }
+
+    @Override
+    public IntStream sorted() {
+        InstrumentedStreams.Stage stage = run.stage("sorted");
+        return wrap(delegate.peek(stage.intBarrierIn()).sorted().peek(stage.intBarrierOut()));
+    }
+
+    @Override
+    public IntStream peek(IntConsumer action) {
+        return wrap(delegate.peek(run.stage("peek").peekInt(action)));
+    }
+
+    @Override
+    public IntStream limit(long maxSize) {
+        InstrumentedStreams.Stage stage = run.stage("limit");
+        return wrap(delegate.peek(stage.countIntIn()).limit(maxSize).peek(stage.countIntOut()));
+    }
+
+    @Override
+    public IntStream skip(long n) {
+        InstrumentedStreams.Stage stage = run.stage("skip");
+        return wrap(delegate.peek(stage.countIntIn()).skip(n).peek(stage.countIntOut()));
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        terminal("forEach", s -> {
+            s.forEach(action);
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachOrdered(IntConsumer action) {
+        terminal("forEachOrdered", s -> {
+            s.forEachOrdered(action);
+            return null;
+        });
+    }
+
+    @Override
+    public int[] toArray() {
+        return terminal("toArray", IntStream::toArray);
+    }
+
+    @Override
+    public int reduce(int identity, IntBinaryOperator op) {
+        return terminal("reduce", s -> s.reduce(identity, op));
+    }
+
+    @Override
+    public OptionalInt reduce(IntBinaryOperator op) {
+        return terminal("reduce", s -> s.reduce(op));
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        return terminal("collect", s -> s.collect(supplier, accumulator, combiner));
+    }
+
+    @Override
+    public int sum() {
+        return terminal("sum", IntStream::sum);
+    }
+
+    @Override
+    public OptionalInt min() {
+        return terminal("min", IntStream::min);
+    }
+
+    @Override
+    public OptionalInt max() {
+        return terminal("max", IntStream::max);
+    }
+
+    @Override
+    public long count() {
+        return terminal("count", IntStream::count);
+    }
+
+    @Override
+    public OptionalDouble average() {
+        return terminal("average", IntStream::average);
+    }
+
+    @Override
+    public IntSummaryStatistics summaryStatistics() {
+        return terminal("summaryStatistics", IntStream::summaryStatistics);
+    }
+
+    @Override
+    public boolean anyMatch(IntPredicate predicate) {
+        return terminal("anyMatch", s -> s.anyMatch(predicate));
+    }
+
+    @Override
+    public boolean allMatch(IntPredicate predicate) {
+        return terminal("allMatch", s -> s.allMatch(predicate));
+    }
+
+    @Override
+    public boolean noneMatch(IntPredicate predicate) {
+        return terminal("noneMatch", s -> s.noneMatch(predicate));
+    }
+
+    @Override
+    public OptionalInt findFirst() {
+        return terminal("findFirst", IntStream::findFirst);
+    }
+
+    @Override
+    public OptionalInt findAny() {
+        return terminal("findAny", IntStream::findAny);
+    }
+
+    @Override
+    public LongStream asLongStream() {
+        return delegate.asLongStream().onClose(run::complete);
+    }
+
+    @Override
+    public DoubleStream asDoubleStream() {
+        return delegate.asDoubleStream().onClose(run::complete);
+    }
+
+    @Override
+    public Stream<Integer> boxed() {
+        return new InstrumentedStream<>(delegate.boxed(), run);
+    }
+
+    @Override
+    public IntStream sequential() {
+        return wrap(delegate.sequential());
+    }
+
+    @Override
+    public IntStream parallel() {
+        return wrap(delegate.parallel());
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return delegate.onClose(run::complete).iterator();
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return delegate.onClose(run::complete).spliterator();
+    }
+
+    @Override
+    public boolean isParallel() {
+        return delegate.isParallel();
+    }
+
+    @Override
+    public IntStream unordered() {
+        return wrap(delegate.unordered());
+    }
+
+    @Override
+    public IntStream onClose(Runnable closeHandler) {
+        return wrap(delegate.onClose(closeHandler));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
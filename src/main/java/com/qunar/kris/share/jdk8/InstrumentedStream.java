@@ -0,0 +1,267 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * InstrumentedStreams.of返回的Stream，每个操作都登记一个stage再交给原来的stream
+ *
+ * @author gongzuo.zy
+ * @version $Id: InstrumentedStream.java, v0.1 2026-10-18 23:20  gongzuo.zy Exp $
+ */
+class InstrumentedStream<T> implements Stream<T> {
+
+    private final Stream<T> delegate;
+
+    private final InstrumentedStreams.Run run;
+
+    InstrumentedStream(Stream<T> delegate, InstrumentedStreams.Run run) {
+        this.delegate = delegate;
+        this.run = run;
+    }
+
+    private <R> Stream<R> wrap(Stream<R> stream) {
+        return new InstrumentedStream<>(stream, run);
+    }
+
+    private <R> R terminal(String operation, Function<Stream<T>, R> action) {
+        InstrumentedStreams.Stage stage = run.stage(operation);
+        return run.terminal(stage, () -> action.apply(delegate.peek(stage.countIn())));
+    }
+
+    @Override
+    public Stream<T> filter(Predicate<? super T> predicate) {
+        return wrap(delegate.filter(run.stage("filter").filter(predicate)));
+    }
+
+    @Override
+    public <R> Stream<R> map(Function<? super T, ? extends R> mapper) {
+        return wrap(delegate.map(run.stage("map").map(mapper)));
+    }
+
+    @Override
+    public IntStream mapToInt(ToIntFunction<? super T> mapper) {
+        return new InstrumentedIntStream(delegate.mapToInt(run.stage("mapToInt").mapToInt(mapper)), run);
+    }
+
+    @Override
+    public LongStream mapToLong(ToLongFunction<? super T> mapper) {
+        return delegate.mapToLong(run.stage("mapToLong").mapToLong(mapper)).onClose(run::complete);
+    }
+
+    @Override
+    public DoubleStream mapToDouble(ToDoubleFunction<? super T> mapper) {
+        return delegate.mapToDouble(run.stage("mapToDouble").mapToDouble(mapper)).onClose(run::complete);
+    }
+
+    @Override
+    public <R> Stream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper) {
+        InstrumentedStreams.Stage stage = run.stage("flatMap");
+        return wrap(delegate.<R>flatMap(stage.timed(mapper)).peek(stage.countOut()));
+    }
+
+    @Override
+    public IntStream flatMapToInt(Function<? super T, ? extends IntStream> mapper) {
+        InstrumentedStreams.Stage stage = run.stage("flatMapToInt");
+        return new InstrumentedIntStream(delegate.flatMapToInt(stage.timed(mapper)).peek(stage.countIntOut()), run);
+    }
+
+    @Override
+    public LongStream flatMapToLong(Function<? super T, ? extends LongStream> mapper) {
+        return delegate.flatMapToLong(run.stage("flatMapToLong").timed(mapper)).onClose(run::complete);
+    }
+
+    @Override
+    public DoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper) {
+        return delegate.flatMapToDouble(run.stage("flatMapToDouble").timed(mapper)).onClose(run::complete);
+    }
+
+    @Override
+    public Stream<T> distinct() {
+        InstrumentedStreams.Stage stage = run.stage("distinct");
+        return wrap(delegate.peek(stage.countIn()).distinct().peek(stage.countOut()));
+    }
+
+    @Override
+    public Stream<T> sorted() {
+        InstrumentedStreams.Stage stage = run.stage("sorted");
+        return wrap(delegate.peek(stage.barrierIn()).sorted().peek(stage.barrierOut()));
+    }
+
+    @Override
+    public Stream<T> sorted(Comparator<? super T> comparator) {
+        InstrumentedStreams.Stage stage = run.stage("sorted");
+        return wrap(delegate.peek(stage.barrierIn()).sorted(comparator).peek(stage.barrierOut()));
+    }
+
+    @Override
+    public Stream<T> peek(Consumer<? super T> action) {
+        return wrap(delegate.peek(run.stage("peek").peek(action)));
+    }
+
+    @Override
+    public Stream<T> limit(long maxSize) {
+        InstrumentedStreams.Stage stage = run.stage("limit");
+        return wrap(delegate.peek(stage.countIn()).limit(maxSize).peek(stage.countOut()));
+    }
+
+    @Override
+    public Stream<T> skip(long n) {
+        InstrumentedStreams.Stage stage = run.stage("skip");
+        return wrap(delegate.peek(stage.countIn()).skip(n).peek(stage.countOut()));
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        terminal("forEach", s -> {
+            s.forEach(action);
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachOrdered(Consumer<? super T> action) {
+        terminal("forEachOrdered", s -> {
+            s.forEachOrdered(action);
+            return null;
+        });
+    }
+
+    @Override
+    public Object[] toArray() {
+        return terminal("toArray", Stream::toArray);
+    }
+
+    @Override
+    public <A> A[] toArray(IntFunction<A[]> generator) {
+        return terminal("toArray", s -> s.toArray(generator));
+    }
+
+    @Override
+    public T reduce(T identity, BinaryOperator<T> accumulator) {
+        return terminal("reduce", s -> s.reduce(identity, accumulator));
+    }
+
+    @Override
+    public Optional<T> reduce(BinaryOperator<T> accumulator) {
+        return terminal("reduce", s -> s.reduce(accumulator));
+    }
+
+    @Override
+    public <U> U reduce(U identity, BiFunction<U, ? super T, U> accumulator, BinaryOperator<U> combiner) {
+        return terminal("reduce", s -> s.reduce(identity, accumulator, combiner));
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator, BiConsumer<R, R> combiner) {
+        return terminal("collect", s -> s.collect(supplier, accumulator, combiner));
+    }
+
+    @Override
+    public <R, A> R collect(Collector<? super T, A, R> collector) {
+        return terminal("collect", s -> s.collect(collector));
+    }
+
+    @Override
+    public Optional<T> min(Comparator<? super T> comparator) {
+        return terminal("min", s -> s.min(comparator));
+    }
+
+    @Override
+    public Optional<T> max(Comparator<? super T> comparator) {
+        return terminal("max", s -> s.max(comparator));
+    }
+
+    @Override
+    public long count() {
+        return terminal("count", Stream::count);
+    }
+
+    @Override
+    public boolean anyMatch(Predicate<? super T> predicate) {
+        return terminal("anyMatch", s -> s.anyMatch(predicate));
+    }
+
+    @Override
+    public boolean allMatch(Predicate<? super T> predicate) {
+        return terminal("allMatch", s -> s.allMatch(predicate));
+    }
+
+    @Override
+    public boolean noneMatch(Predicate<? super T> predicate) {
+        return terminal("noneMatch", s -> s.noneMatch(predicate));
+    }
+
+    @Override
+    public Optional<T> findFirst() {
+        return terminal("findFirst", Stream::findFirst);
+    }
+
+    @Override
+    public Optional<T> findAny() {
+        return terminal("findAny", Stream::findAny);
+    }
+
+    // 惰性的终结操作，不知道什么时候遍历完，close时才汇总
+    @Override
+    public Iterator<T> iterator() {
+        return delegate.onClose(run::complete).iterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return delegate.onClose(run::complete).spliterator();
+    }
+
+    @Override
+    public boolean isParallel() {
+        return delegate.isParallel();
+    }
+
+    @Override
+    public Stream<T> sequential() {
+        return wrap(delegate.sequential());
+    }
+
+    @Override
+    public Stream<T> parallel() {
+        return wrap(delegate.parallel());
+    }
+
+    @Override
+    public Stream<T> unordered() {
+        return wrap(delegate.unordered());
+    }
+
+    @Override
+    public Stream<T> onClose(Runnable closeHandler) {
+        return wrap(delegate.onClose(closeHandler));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,520 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 带统计的Stream，用来定位流水线里到底是哪一步慢。
+ * 每个中间操作是一个stage，记录进入、输出的元素个数，自身的耗时，以及执行时在当前线程上分配的字节数：
+ * <ul>
+ *     <li>filter、map、flatMap、peek这类无状态操作，直接包装传入的函数，耗时只包括函数本身，不包括下游</li>
+ *     <li>sorted、distinct、skip、limit只统计元素个数；sorted额外把"最后一个元素进入到第一个元素输出"的时间记作排序耗时</li>
+ *     <li>终结操作也是一个stage，它的耗时和分配是整条流水线在调用线程上的总和</li>
+ * </ul>
+ * 终结操作结束时，本次执行的数据累加到按流水线名字汇总的统计里（snapshot），如果JFR可用，同时每个stage提交一个JFR事件。
+ * 转成LongStream、DoubleStream之后的部分不再统计；iterator()和spliterator()要在close之后才汇总。
+ * 关闭时（默认，-Djdk8.stream.instrument=true 打开）of直接返回原来的stream，没有任何额外开销
+ *
+ * <pre>
+ *   InstrumentedStreams.of("upper-sorted", list.stream())
+ *           .map(String::toUpperCase).sorted().limit(10).collect(toList());
+ *   InstrumentedStreams.snapshot().forEach(System.out::println);
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: InstrumentedStreams.java, v0.1 2026-10-18 23:20  gongzuo.zy Exp $
+ */
+public class InstrumentedStreams {
+
+    private static volatile boolean enabled = Boolean.getBoolean("jdk8.stream.instrument");
+
+    private static final ConcurrentMap<String, Pipeline> PIPELINES = new ConcurrentHashMap<>();
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    // jdk.jfr不存在、或者编译时没有带上src/jfr/java时为null
+    private static final BiConsumer<String, Stage> JFR = jfrEmitter();
+
+    private InstrumentedStreams() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        InstrumentedStreams.enabled = enabled;
+    }
+
+    public static <T> Stream<T> of(String pipeline, Stream<T> stream) {
+        return enabled ? new InstrumentedStream<>(stream, new Run(pipeline)) : stream;
+    }
+
+    public static IntStream of(String pipeline, IntStream stream) {
+        return enabled ? new InstrumentedIntStream(stream, new Run(pipeline)) : stream;
+    }
+
+    // 所有流水线已完成执行的累计数据，按流水线名字和stage顺序排列
+    public static List<StageSnapshot> snapshot() {
+        List<StageSnapshot> result = new ArrayList<>();
+        PIPELINES.values().stream().sorted((a, b) -> a.name.compareTo(b.name)).forEach(p -> p.snapshot(result));
+        return result;
+    }
+
+    public static void reset() {
+        PIPELINES.clear();
+    }
+
+    static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    // 8u262之前的jdk8没有jdk.jfr，这时只提供snapshot；事件类在src/jfr/java里单独编译，只能在确认存在之后反射加载
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<String, Stage> jfrEmitter() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            Class<?> emitter = Class.forName("com.qunar.kris.share.jdk8.StreamStageEvent$Emitter");
+            return (BiConsumer<String, Stage>) emitter.newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一次执行（从of到终结操作）
+     */
+    static final class Run {
+
+        private final String pipeline;
+
+        private final List<Stage> stages = new ArrayList<>();
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        Run(String pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        // 中间操作在构建流水线时调用，只会在一个线程里
+        Stage stage(String operation) {
+            Stage stage = new Stage(stages.size(), operation);
+            stages.add(stage);
+            return stage;
+        }
+
+        <R> R terminal(Stage stage, Supplier<R> action) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            try {
+                return action.get();
+            } finally {
+                stage.elapsed(start, bytes);
+                complete();
+            }
+        }
+
+        void complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            PIPELINES.computeIfAbsent(pipeline, Pipeline::new).add(stages);
+            if (JFR != null) {
+                for (Stage stage : stages) {
+                    JFR.accept(pipeline, stage);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个stage在一次执行中的数据，parallelStream下会被多个线程同时更新
+     */
+    static final class Stage {
+
+        private final int index;
+
+        private final String operation;
+
+        private final LongAdder in = new LongAdder();
+
+        private final LongAdder out = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        // sorted要等所有元素进入后才开始输出，两者之间就是排序的时间
+        private final LongAccumulator lastIn = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        private final LongAccumulator firstOut = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+        Stage(int index, String operation) {
+            this.index = index;
+            this.operation = operation;
+        }
+
+        <T> Predicate<T> filter(Predicate<? super T> predicate) {
+            return t -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                boolean accepted = predicate.test(t);
+                entered(start, bytes);
+                if (accepted) {
+                    out.increment();
+                }
+                return accepted;
+            };
+        }
+
+        <T, R> Function<T, R> map(Function<? super T, ? extends R> mapper) {
+            return t -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                R result = mapper.apply(t);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        // 只计进入和耗时，输出另外用countOut统计，用于flatMap
+        <T, R> Function<T, R> timed(Function<? super T, ? extends R> mapper) {
+            return t -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                R result = mapper.apply(t);
+                entered(start, bytes);
+                return result;
+            };
+        }
+
+        <T> ToIntFunction<T> mapToInt(ToIntFunction<? super T> mapper) {
+            return t -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                int result = mapper.applyAsInt(t);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        <T> ToLongFunction<T> mapToLong(ToLongFunction<? super T> mapper) {
+            return t -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                long result = mapper.applyAsLong(t);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        <T> ToDoubleFunction<T> mapToDouble(ToDoubleFunction<? super T> mapper) {
+            return t -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                double result = mapper.applyAsDouble(t);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        <T> Consumer<T> peek(Consumer<? super T> action) {
+            return t -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                action.accept(t);
+                entered(start, bytes);
+                out.increment();
+            };
+        }
+
+        IntPredicate filterInt(IntPredicate predicate) {
+            return value -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                boolean accepted = predicate.test(value);
+                entered(start, bytes);
+                if (accepted) {
+                    out.increment();
+                }
+                return accepted;
+            };
+        }
+
+        IntUnaryOperator mapInt(IntUnaryOperator mapper) {
+            return value -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                int result = mapper.applyAsInt(value);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        <R> IntFunction<R> mapToObj(IntFunction<? extends R> mapper) {
+            return value -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                R result = mapper.apply(value);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        <R> IntFunction<R> timedInt(IntFunction<? extends R> mapper) {
+            return value -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                R result = mapper.apply(value);
+                entered(start, bytes);
+                return result;
+            };
+        }
+
+        IntToLongFunction mapIntToLong(IntToLongFunction mapper) {
+            return value -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                long result = mapper.applyAsLong(value);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        IntToDoubleFunction mapIntToDouble(IntToDoubleFunction mapper) {
+            return value -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                double result = mapper.applyAsDouble(value);
+                entered(start, bytes);
+                out.increment();
+                return result;
+            };
+        }
+
+        IntConsumer peekInt(IntConsumer action) {
+            return value -> {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                action.accept(value);
+                entered(start, bytes);
+                out.increment();
+            };
+        }
+
+        <T> Consumer<T> countIn() {
+            return t -> in.increment();
+        }
+
+        <T> Consumer<T> countOut() {
+            return t -> out.increment();
+        }
+
+        IntConsumer countIntIn() {
+            return value -> in.increment();
+        }
+
+        IntConsumer countIntOut() {
+            return value -> out.increment();
+        }
+
+        <T> Consumer<T> barrierIn() {
+            return t -> {
+                in.increment();
+                lastIn.accumulate(System.nanoTime());
+            };
+        }
+
+        <T> Consumer<T> barrierOut() {
+            return t -> {
+                out.increment();
+                firstOut.accumulate(System.nanoTime());
+            };
+        }
+
+        IntConsumer intBarrierIn() {
+            return value -> {
+                in.increment();
+                lastIn.accumulate(System.nanoTime());
+            };
+        }
+
+        IntConsumer intBarrierOut() {
+            return value -> {
+                out.increment();
+                firstOut.accumulate(System.nanoTime());
+            };
+        }
+
+        void elapsed(long start, long bytes) {
+            nanos.add(System.nanoTime() - start);
+            this.bytes.add(allocatedBytes() - bytes);
+        }
+
+        private void entered(long start, long bytes) {
+            in.increment();
+            elapsed(start, bytes);
+        }
+
+        long nanos() {
+            long barrier = firstOut.get() - lastIn.get();
+            return lastIn.get() != Long.MIN_VALUE && firstOut.get() != Long.MAX_VALUE && barrier > 0
+                    ? nanos.sum() + barrier : nanos.sum();
+        }
+
+        String name() {
+            return index + ":" + operation;
+        }
+
+        long elementsIn() {
+            return in.sum();
+        }
+
+        long elementsOut() {
+            return out.sum();
+        }
+
+        long allocated() {
+            return bytes.sum();
+        }
+    }
+
+    /**
+     * 同名流水线所有执行的累计
+     */
+    private static final class Pipeline {
+
+        private final String name;
+
+        private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+        Pipeline(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(List<Stage> run) {
+            for (Stage stage : run) {
+                long[] totals = stages.computeIfAbsent(stage.name(), k -> new long[5]);
+                totals[0]++;
+                totals[1] += stage.in.sum();
+                totals[2] += stage.out.sum();
+                totals[3] += stage.nanos();
+                totals[4] += stage.bytes.sum();
+            }
+        }
+
+        synchronized void snapshot(List<StageSnapshot> result) {
+            stages.forEach((stage, t) -> result.add(new StageSnapshot(name, stage, t[0], t[1], t[2], t[3], t[4])));
+        }
+    }
+
+    public static final class StageSnapshot {
+
+        private final String pipeline;
+
+        private final String stage;
+
+        private final long runs;
+
+        private final long elementsIn;
+
+        private final long elementsOut;
+
+        private final long nanos;
+
+        private final long allocatedBytes;
+
+        StageSnapshot(String pipeline, String stage, long runs, long elementsIn, long elementsOut, long nanos,
+                      long allocatedBytes) {
+            this.pipeline = pipeline;
+            this.stage = stage;
+            this.runs = runs;
+            this.elementsIn = elementsIn;
+            this.elementsOut = elementsOut;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getPipeline() {
+            return pipeline;
+        }
+
+        // 形如 "1:filter"，前面是在流水线中的位置
+        public String getStage() {
+            return stage;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getElementsIn() {
+            return elementsIn;
+        }
+
+        public long getElementsOut() {
+            return elementsOut;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %-12s runs=%d in=%d out=%d time=%.3fms alloc=%dB",
+                    pipeline, stage, runs, elementsIn, elementsOut, nanos / 1e6, allocatedBytes);
+        }
+    }
+}
@@ -7,6 +7,7 @@ package com.qunar.kris.share.jdk8;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.util.Collections;
 
 /**
  * jdk8的内置javascript引擎
@@ -21,5 +22,9 @@ public class JavascriptStudy {
         ScriptEngine engine = manager.getEngineByName("nashorn");
         Object result = engine.eval("'Hello, World!'.length");
         System.out.println(result);
+
+        // 高并发下复用引擎池和编译好的脚本，每次调用只新建Bindings，数据见ScriptServiceBenchmark
+        ScriptService service = new ScriptService();
+        System.out.println(service.eval("name.length", Collections.singletonMap("name", "Hello, World!")));
     }
 }
@@ -7,7 +7,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
 
 /**
  * lambda表达式
@@ -23,6 +28,14 @@ public class LambdaStudy {
 
         T add(T a, T b);
 
+        /*
+         * 是否满足结合律 (a+b)+c == a+(b+c)，满足的才能拆分后并行累加。
+         * 默认不满足，例如 (a, b) -> a + b + x 这样的加法器
+         */
+        default boolean associative() {
+            return false;
+        }
+
         /*
          * 我们也可以指定默认的实现
          * 有了默认实现，我们以后就不需要在创建
@@ -39,7 +52,33 @@ public class LambdaStudy {
         }
     }
 
-    private static class AdderHelper {
+    // 声明满足结合律的加法器，例如 AssociativeAdder<Integer> adder = AdderHelper::add;
+    @FunctionalInterface
+    interface AssociativeAdder<T> extends Adder<T> {
+
+        @Override
+        default boolean associative() {
+            return true;
+        }
+    }
+
+    // 基本类型的加法器，避免Integer/Long/Double装箱
+    @FunctionalInterface
+    interface IntAdder {
+        int add(int a, int b);
+    }
+
+    @FunctionalInterface
+    interface LongAdder {
+        long add(long a, long b);
+    }
+
+    @FunctionalInterface
+    interface DoubleAdder {
+        double add(double a, double b);
+    }
+
+    static class AdderHelper {
         static <T> T addList(List<T> list, Adder<T> adder) {
             T t = list.get(0);
             for (int i = 1; i < list.size(); i++) {
@@ -48,6 +87,111 @@ public class LambdaStudy {
             return t;
         }
 
+        // 并行累加的默认阈值，子任务元素个数不超过它时不再拆分，直接顺序累加
+        static final int DEFAULT_THRESHOLD = 1 << 13;
+
+        static <T> T addListParallel(List<T> list, Adder<T> adder) {
+            return addListParallel(list, adder, DEFAULT_THRESHOLD);
+        }
+
+        /*
+         * 基于fork/join的并行累加，递归二分列表，左右两半的结果仍然用同一个adder合并，
+         * 合并时保持左在前右在后，所以只要求结合律，不要求交换律。
+         * 不满足结合律的adder，或者不能随机访问的列表，退化为顺序累加
+         */
+        static <T> T addListParallel(List<T> list, Adder<T> adder, int threshold) {
+            if (threshold < 1) {
+                throw new IllegalArgumentException("threshold must be positive: " + threshold);
+            }
+            if (!adder.associative() || !(list instanceof RandomAccess) || list.size() <= threshold) {
+                return addList(list, adder);
+            }
+            return ForkJoinPool.commonPool().invoke(new AddTask<>(list, 0, list.size(), adder, threshold));
+        }
+
+        private static <T> T addRange(List<T> list, int from, int to, Adder<T> adder) {
+            T t = list.get(from);
+            for (int i = from + 1; i < to; i++) {
+                t = adder.add(t, list.get(i));
+            }
+            return t;
+        }
+
+        private static class AddTask<T> extends RecursiveTask<T> {
+
+            private static final long serialVersionUID = 1L;
+
+            private final List<T> list;
+            private final int from;
+            private final int to;
+            private final Adder<T> adder;
+            private final int threshold;
+
+            AddTask(List<T> list, int from, int to, Adder<T> adder, int threshold) {
+                this.list = list;
+                this.from = from;
+                this.to = to;
+                this.adder = adder;
+                this.threshold = threshold;
+            }
+
+            @Override
+            protected T compute() {
+                if (to - from <= threshold) {
+                    return addRange(list, from, to, adder);
+                }
+                int mid = (from + to) >>> 1;
+                AddTask<T> left = new AddTask<>(list, from, mid, adder, threshold);
+                left.fork();
+                T right = new AddTask<>(list, mid, to, adder, threshold).compute();
+                return adder.add(left.join(), right);
+            }
+        }
+
+        /*
+         * 下面是基本类型的版本，和泛型版本一样从左往右累加，结果完全一致，
+         * 但是整个过程不会分配任何对象。
+         * guava的Ints.asList每次get都会装箱，直接传它背后的数组即可
+         */
+        static int addList(int[] array, IntAdder adder) {
+            return addList(array, 0, array.length, adder);
+        }
+
+        static int addList(int[] array, int from, int to, IntAdder adder) {
+            checkElementIndex(from, to);
+            int t = array[from];
+            for (int i = from + 1; i < to; i++) {
+                t = adder.add(t, array[i]);
+            }
+            return t;
+        }
+
+        static long addList(long[] array, LongAdder adder) {
+            return addList(array, 0, array.length, adder);
+        }
+
+        static long addList(long[] array, int from, int to, LongAdder adder) {
+            checkElementIndex(from, to);
+            long t = array[from];
+            for (int i = from + 1; i < to; i++) {
+                t = adder.add(t, array[i]);
+            }
+            return t;
+        }
+
+        static double addList(double[] array, DoubleAdder adder) {
+            return addList(array, 0, array.length, adder);
+        }
+
+        static double addList(double[] array, int from, int to, DoubleAdder adder) {
+            checkElementIndex(from, to);
+            double t = array[from];
+            for (int i = from + 1; i < to; i++) {
+                t = adder.add(t, array[i]);
+            }
+            return t;
+        }
+
         static int add(int a, int b) {
             return a + b;
         }
@@ -98,6 +242,14 @@ public class LambdaStudy {
         Adder<Integer> adder = AdderHelper::add;//也可以使用对象::add来因为非静态
         System.out.println(AdderHelper.addList(Ints.asList(1, 2, 3), adder));
 
+        // 同一个方法引用也可以赋给基本类型的加法器，不再装箱
+        IntAdder intAdder = AdderHelper::add;
+        System.out.println(AdderHelper.addList(new int[] {1, 2, 3}, intAdder));
+
+        // 声明了结合律，数据量大时可以拆分到多个核上并行累加
+        AssociativeAdder<Integer> associativeAdder = AdderHelper::add;
+        System.out.println(AdderHelper.addListParallel(Ints.asList(1, 2, 3), associativeAdder));
+
         /*
          * 这个new是构造方法的意思，他的函数签名对应接口的函数签名
          * 一切都很自然。这种工厂方法，你看不到工厂的实现。。。。
@@ -106,6 +258,12 @@ public class LambdaStudy {
         Person person = personFactory.create("Peter", "Parker");
         System.out.println(person);
 
+        // 转换完就丢弃的Person可以从线程本地的池里取，用完放回去
+        PersonFactories.Pool pool = PersonFactories.pooled(64);
+        Person pooled = pool.create("Peter", "Parker");
+        System.out.println(pooled);
+        pool.release(pooled);
+
         /*
          * 在lambda表达式中访问外层作用域和老版本的匿名对象中的方式很相似。
          * 你可以直接访问标记了final的外层局部变量，或者实例的字段以及静态变量
@@ -144,12 +302,12 @@ public class LambdaStudy {
 
         void sayGreet() {
             // 可以使用super::greet 引用父类的函数
-            Thread t1 = new Thread(super::greet);
-            t1.start();
+            // 不要每次都new Thread，并发一高本地线程就不够用了；JDK21+上TaskLauncher会用虚拟线程。
+            // 和非守护的new Thread一样，JVM退出前会等这两个任务执行完
+            TaskLauncher.shared().launch(super::greet);
 
             // 使用this::manSayGreet访问
-            Thread t2 = new Thread(this::manSayGreet);
-            t2.start();
+            TaskLauncher.shared().launch(this::manSayGreet);
         }
 
         void manSayGreet() {
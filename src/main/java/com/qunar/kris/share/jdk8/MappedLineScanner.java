@@ -0,0 +1,264 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 内存映射 + 按块并行的行搜索，用来替代 Files.lines(path).filter(s -> s.contains(...))。
+ * 文件按行对齐切成若干块，每块单独map，直接在字节上匹配，只有命中的行才解码成String。
+ * 文件按UTF-8处理，行以\n或\r\n结束（行尾的\r会去掉）；单独的\r不算行结束，这一点和Files.lines不同，
+ * 老式Mac换行的文件会被当成一整行
+ *
+ * @author gongzuo.zy
+ * @version $Id: MappedLineScanner.java, v0.1 2026-10-18 15:20  gongzuo.zy Exp $
+ */
+public class MappedLineScanner {
+
+    // 默认每块64M，一次map不能超过2G
+    public static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+    private static final byte LF = '\n';
+
+    private static final byte CR = '\r';
+
+    private final Path file;
+
+    private final int chunkSize;
+
+    public MappedLineScanner(Path file) {
+        this(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    public MappedLineScanner(Path file, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.file = Objects.requireNonNull(file);
+        this.chunkSize = chunkSize;
+    }
+
+    /*
+     * 找到文件中第一行包含pattern的行。各块并行扫描，
+     * 前面的块一旦命中，后面的块就不再继续扫描
+     */
+    public Optional<String> findFirst(String pattern) throws IOException {
+        byte[] needle = pattern.getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            AtomicInteger firstHit = new AtomicInteger(Integer.MAX_VALUE);
+            return IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> {
+                        // 前面的块已经找到了，这一块的结果用不上了
+                        if (firstHit.get() < i) {
+                            return null;
+                        }
+                        String line = new Matcher(channel, bounds[i], bounds[i + 1], needle).next();
+                        if (line != null) {
+                            firstHit.accumulateAndGet(i, Math::min);
+                        }
+                        return line;
+                    })
+                    .filter(Objects::nonNull)
+                    .findFirst();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+     * 按文件顺序返回所有包含pattern的行。返回的是串行stream，取一行才往后找一行，
+     * 同一时刻只map一块，不会把一块的命中先收集起来；用完需要关闭stream
+     */
+    public Stream<String> findAll(String pattern) throws IOException {
+        byte[] needle = pattern.getBytes(StandardCharsets.UTF_8);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long[] bounds = chunkBounds(channel);
+            Spliterator<String> lines = new Spliterators.AbstractSpliterator<String>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+
+                private int chunk;
+
+                private Matcher matcher;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super String> action) {
+                    for (; ; ) {
+                        if (matcher == null) {
+                            if (chunk == bounds.length - 1) {
+                                return false;
+                            }
+                            matcher = new Matcher(channel, bounds[chunk], bounds[chunk + 1], needle);
+                            chunk++;
+                        }
+                        String line = matcher.next();
+                        if (line != null) {
+                            action.accept(line);
+                            return true;
+                        }
+                        matcher = null;
+                    }
+                }
+            };
+            return StreamSupport.stream(lines, false)
+                    .onClose(() -> {
+                        try {
+                            channel.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+     * 计算按行对齐的块边界：从每个名义边界往后找到下一个\n，
+     * 块从\n的下一个字节开始，这样跨边界的行完整地落在前一块里
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long last = 0;
+        for (long nominal = chunkSize; nominal < size; nominal += chunkSize) {
+            if (nominal <= last) {
+                continue;
+            }
+            long next = nextLineStart(channel, nominal - 1, size);
+            if (next >= size) {
+                break;
+            }
+            if (next > last) {
+                bounds.add(next);
+                last = next;
+            }
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == LF) {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /**
+     * 在一块里从前往后找包含needle的行
+     */
+    private static final class Matcher {
+
+        private final ByteBuffer buffer;
+
+        private final byte[] needle;
+
+        private final int limit;
+
+        private int position;
+
+        Matcher(FileChannel channel, long start, long end, byte[] needle) {
+            try {
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, end - start));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.needle = needle;
+            this.limit = buffer.limit();
+        }
+
+        // 下一行命中的行，没有了返回null
+        String next() {
+            if (position >= limit) {
+                return null;
+            }
+            int hit = indexOf(buffer, needle, position, limit);
+            if (hit < 0) {
+                position = limit;
+                return null;
+            }
+            int lineStart = hit;
+            while (lineStart > 0 && buffer.get(lineStart - 1) != LF) {
+                lineStart--;
+            }
+            int lineEnd = hit + needle.length;
+            while (lineEnd < limit && buffer.get(lineEnd) != LF) {
+                lineEnd++;
+            }
+            position = lineEnd + 1;
+            return decode(buffer, lineStart, lineEnd);
+        }
+    }
+
+    // 先匹配首字节再比较剩余字节；空pattern匹配每一行
+    private static int indexOf(ByteBuffer buffer, byte[] needle, int from, int limit) {
+        if (needle.length == 0) {
+            return from;
+        }
+        byte first = needle[0];
+        int max = limit - needle.length;
+        outer:
+        for (int i = from; i <= max; i++) {
+            if (buffer.get(i) != first) {
+                continue;
+            }
+            for (int j = 1; j < needle.length; j++) {
+                if (buffer.get(i + j) != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == CR) {
+            end--;
+        }
+        byte[] bytes = new byte[end - start];
+        ByteBuffer line = buffer.duplicate();
+        line.position(start);
+        line.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
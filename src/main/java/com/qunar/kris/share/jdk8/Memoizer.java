@@ -0,0 +1,814 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 给Function/BiFunction/Supplier加一层缓存：
+ * <ul>
+ *     <li>maximumSize + policy：超过容量时按LRU或W-TinyLFU淘汰。W-TinyLFU用一个很小的LRU窗口接收新key，
+ *     窗口挤出来的候选者和主区最冷的key比较访问频率（count-min sketch估算），频率高的留下，
+ *     热点集中的（Zipf）访问下命中率明显高于LRU</li>
+ *     <li>expireAfterWrite：写入后过期；refreshAfterWrite：到期后第一次访问触发重新计算，
+ *     计算期间其他线程继续拿旧值，给了refreshExecutor时在后台计算</li>
+ *     <li>按key的哈希分成多个stripe，每个stripe一把锁，concurrencyLevel决定stripe数</li>
+ *     <li>同一个key并发未命中时只计算一次，其余线程等待同一个结果</li>
+ *     <li>stats：命中、未命中、淘汰次数和平均计算耗时</li>
+ * </ul>
+ *
+ * <pre>
+ *   Function&lt;String, String&gt; replace = Memoizer.builder().maximumSize(10000)
+ *           .expireAfterWrite(10, TimeUnit.MINUTES).function(ProgramLambdaStudy.returnFunction());
+ * </pre>
+ *
+ * 函数返回null也会被缓存；函数抛出的非受检异常原样抛给调用方（和它一起等待的线程也收到同一个异常），不会被缓存
+ *
+ * @author gongzuo.zy
+ * @version $Id: Memoizer.java, v0.1 2026-10-19 04:00  gongzuo.zy Exp $
+ */
+public class Memoizer {
+
+    public enum Policy {
+        LRU,
+        TINY_LFU
+    }
+
+    // 每个stripe至少放这么多个key，容量小的时候少分几个stripe，淘汰的决策不至于太局部
+    private static final int MIN_STRIPE_CAPACITY = 64;
+
+    private Memoizer() {
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        private long maximumSize = -1;
+
+        private Policy policy = Policy.TINY_LFU;
+
+        private long expireNanos = -1;
+
+        private long refreshNanos = -1;
+
+        private Executor refreshExecutor;
+
+        private int concurrencyLevel = 16;
+
+        private Builder() {
+        }
+
+        /*
+         * 不设置时不限大小；0表示不缓存，只保留"并发未命中只算一次"
+         */
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder policy(Policy policy) {
+            this.policy = Objects.requireNonNull(policy);
+            return this;
+        }
+
+        public Builder expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireNanos = positive(duration, unit);
+            return this;
+        }
+
+        public Builder refreshAfterWrite(long duration, TimeUnit unit) {
+            this.refreshNanos = positive(duration, unit);
+            return this;
+        }
+
+        /*
+         * 不设置时刷新在触发它的调用线程里同步执行
+         */
+        public Builder refreshExecutor(Executor executor) {
+            this.refreshExecutor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel < 1 || concurrencyLevel > 1 << 16) {
+                throw new IllegalArgumentException("concurrencyLevel must be between 1 and 65536: " + concurrencyLevel);
+            }
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        public <T, R> MemoizedFunction<T, R> function(Function<? super T, ? extends R> function) {
+            Objects.requireNonNull(function);
+            return new MemoizedFunction<>(new Cache<T, R>(this, function), function);
+        }
+
+        public <T, U, R> MemoizedBiFunction<T, U, R> biFunction(BiFunction<? super T, ? super U, ? extends R> function) {
+            Objects.requireNonNull(function);
+            return new MemoizedBiFunction<>(new Cache<Pair<T, U>, R>(this, pair -> function.apply(pair.first, pair.second)));
+        }
+
+        public <R> MemoizedSupplier<R> supplier(Supplier<? extends R> supplier) {
+            Objects.requireNonNull(supplier);
+            return new MemoizedSupplier<>(new Cache<Boolean, R>(this, key -> supplier.get()));
+        }
+
+        private static long positive(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            return unit.toNanos(duration);
+        }
+    }
+
+    /**
+     * 三种缓存函数共用的部分
+     */
+    public abstract static class Memoized<K, V> {
+
+        final Cache<K, V> cache;
+
+        Memoized(Cache<K, V> cache) {
+            this.cache = cache;
+        }
+
+        public long size() {
+            return cache.size();
+        }
+
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+
+        public Stats stats() {
+            return cache.stats();
+        }
+    }
+
+    public static final class MemoizedFunction<T, R> extends Memoized<T, R> implements Function<T, R> {
+
+        private final Function<? super T, ? extends R> function;
+
+        MemoizedFunction(Cache<T, R> cache, Function<? super T, ? extends R> function) {
+            super(cache);
+            this.function = function;
+        }
+
+        // null没法作为key，直接计算
+        @Override
+        public R apply(T key) {
+            return key == null ? function.apply(null) : cache.get(key);
+        }
+
+        public void invalidate(T key) {
+            if (key != null) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    public static final class MemoizedBiFunction<T, U, R> extends Memoized<Pair<T, U>, R> implements BiFunction<T, U, R> {
+
+        MemoizedBiFunction(Cache<Pair<T, U>, R> cache) {
+            super(cache);
+        }
+
+        @Override
+        public R apply(T first, U second) {
+            return cache.get(new Pair<>(first, second));
+        }
+
+        public void invalidate(T first, U second) {
+            cache.invalidate(new Pair<>(first, second));
+        }
+    }
+
+    public static final class MemoizedSupplier<R> extends Memoized<Boolean, R> implements Supplier<R> {
+
+        MemoizedSupplier(Cache<Boolean, R> cache) {
+            super(cache);
+        }
+
+        @Override
+        public R get() {
+            return cache.get(Boolean.TRUE);
+        }
+    }
+
+    // BiFunction的两个参数合成一个key，参数可以是null
+    static final class Pair<T, U> {
+
+        private final T first;
+
+        private final U second;
+
+        Pair(T first, U second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair<?, ?> other = (Pair<?, ?>) o;
+            return Objects.equals(first, other.first) && Objects.equals(second, other.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(first) + Objects.hashCode(second);
+        }
+    }
+
+    static final class Cache<K, V> {
+
+        private final Function<? super K, ? extends V> loader;
+
+        private final Stripe<K, V>[] stripes;
+
+        private final long expireNanos;
+
+        private final long refreshNanos;
+
+        private final Executor refreshExecutor;
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private final LongAdder evictions = new LongAdder();
+
+        private final LongAdder loads = new LongAdder();
+
+        private final LongAdder loadFailures = new LongAdder();
+
+        private final LongAdder loadNanos = new LongAdder();
+
+        @SuppressWarnings("unchecked")
+        Cache(Builder builder, Function<? super K, ? extends V> loader) {
+            this.loader = loader;
+            this.expireNanos = builder.expireNanos;
+            this.refreshNanos = builder.refreshNanos;
+            this.refreshExecutor = builder.refreshExecutor;
+            int count = Integer.highestOneBit((builder.concurrencyLevel - 1) << 1 | 1);
+            while (count > 1 && builder.maximumSize >= 0 && builder.maximumSize / count < MIN_STRIPE_CAPACITY) {
+                count >>= 1;
+            }
+            long capacity = builder.maximumSize < 0 ? Long.MAX_VALUE : (builder.maximumSize + count - 1) / count;
+            stripes = (Stripe<K, V>[]) new Stripe<?, ?>[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new Stripe<>(capacity, builder.policy);
+            }
+        }
+
+        V get(K key) {
+            int hash = spread(key.hashCode());
+            Stripe<K, V> stripe = stripes[hash & (stripes.length - 1)];
+            Node<K, V> node;
+            CompletableFuture<V> loading = null;
+            V value = null;
+            boolean refresh = false;
+            stripe.lock();
+            try {
+                node = stripe.map.get(key);
+                if (node != null && node.loading == null) {
+                    long age = expireNanos > 0 || refreshNanos > 0 ? System.nanoTime() - node.writeNanos : 0;
+                    if (expireNanos > 0 && age >= expireNanos) {
+                        stripe.remove(node);
+                        evictions.increment();
+                        node = null;
+                    } else {
+                        hits.increment();
+                        stripe.onHit(node);
+                        value = node.value;
+                        if (refreshNanos <= 0 || age < refreshNanos || node.refreshing) {
+                            return value;
+                        }
+                        node.refreshing = true;
+                        refresh = true;
+                    }
+                }
+                if (!refresh) {
+                    misses.increment();
+                    stripe.onMiss(hash);
+                    if (node == null) {
+                        node = new Node<>(key, hash);
+                        stripe.map.put(key, node);
+                    } else {
+                        loading = node.loading;
+                    }
+                }
+            } finally {
+                stripe.unlock();
+            }
+            if (refresh) {
+                return refresh(stripe, node, value);
+            }
+            if (loading == null) {
+                return load(stripe, node);
+            }
+            if (node.loader == Thread.currentThread()) {
+                throw new IllegalStateException("recursive load of key " + key);
+            }
+            return await(loading);
+        }
+
+        // 由第一个未命中的线程计算，其他线程等node.loading
+        private V load(Stripe<K, V> stripe, Node<K, V> node) {
+            long start = System.nanoTime();
+            V value;
+            try {
+                value = loader.apply(node.key);
+            } catch (RuntimeException | Error e) {
+                loadFinished(start, false);
+                stripe.lock();
+                try {
+                    if (stripe.map.get(node.key) == node) {
+                        stripe.map.remove(node.key);
+                    }
+                } finally {
+                    stripe.unlock();
+                }
+                node.loading.completeExceptionally(e);
+                throw e;
+            }
+            loadFinished(start, true);
+            CompletableFuture<V> loading = node.loading;
+            stripe.lock();
+            try {
+                node.value = value;
+                node.writeNanos = System.nanoTime();
+                node.loading = null;
+                // 计算期间被invalidate的不再放进缓存；maximumSize(0)时算完马上丢掉，
+                // 不能走admit，W-TinyLFU的window至少有1个位置
+                if (stripe.map.get(node.key) == node) {
+                    if (stripe.capacity == 0) {
+                        stripe.map.remove(node.key);
+                        evictions.increment();
+                    } else {
+                        evictions.add(stripe.admit(node));
+                    }
+                }
+            } finally {
+                stripe.unlock();
+            }
+            loading.complete(value);
+            return value;
+        }
+
+        private V await(CompletableFuture<V> loading) {
+            try {
+                return loading.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+
+        private V refresh(Stripe<K, V> stripe, Node<K, V> node, V oldValue) {
+            if (refreshExecutor == null) {
+                return reload(stripe, node, oldValue);
+            }
+            try {
+                refreshExecutor.execute(() -> reload(stripe, node, oldValue));
+            } catch (RuntimeException e) {
+                stripe.lock();
+                try {
+                    node.refreshing = false;
+                } finally {
+                    stripe.unlock();
+                }
+            }
+            return oldValue;
+        }
+
+        // 刷新失败时保留旧值，下一次访问再试
+        private V reload(Stripe<K, V> stripe, Node<K, V> node, V oldValue) {
+            long start = System.nanoTime();
+            V value;
+            boolean success = false;
+            try {
+                value = loader.apply(node.key);
+                success = true;
+            } catch (RuntimeException | Error e) {
+                value = oldValue;
+            }
+            loadFinished(start, success);
+            stripe.lock();
+            try {
+                if (success && stripe.map.get(node.key) == node) {
+                    node.value = value;
+                    node.writeNanos = System.nanoTime();
+                }
+                node.refreshing = false;
+            } finally {
+                stripe.unlock();
+            }
+            return value;
+        }
+
+        private void loadFinished(long start, boolean success) {
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+            if (!success) {
+                loadFailures.increment();
+            }
+        }
+
+        void invalidate(K key) {
+            Stripe<K, V> stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+            stripe.lock();
+            try {
+                Node<K, V> node = stripe.map.get(key);
+                if (node != null) {
+                    stripe.remove(node);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+
+        void invalidateAll() {
+            for (Stripe<K, V> stripe : stripes) {
+                stripe.lock();
+                try {
+                    stripe.clear();
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        }
+
+        long size() {
+            long size = 0;
+            for (Stripe<K, V> stripe : stripes) {
+                stripe.lock();
+                try {
+                    size += stripe.size;
+                } finally {
+                    stripe.unlock();
+                }
+            }
+            return size;
+        }
+
+        Stats stats() {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), loads.sum(), loadFailures.sum(), loadNanos.sum());
+        }
+
+        private static int spread(int hash) {
+            hash = (hash ^ hash >>> 16) * 0x45d9f3b;
+            return hash ^ hash >>> 16;
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        final K key;
+
+        final int hash;
+
+        V value;
+
+        long writeNanos;
+
+        // 计算中的key，计算完成后为null
+        CompletableFuture<V> loading = new CompletableFuture<>();
+
+        // 发起计算的线程，用来发现计算里又访问了同一个key
+        final Thread loader = Thread.currentThread();
+
+        boolean refreshing;
+
+        // 所在的队列和前后指针，还在计算中的key不在任何队列里
+        Queue<K, V> queue;
+
+        Node<K, V> prev;
+
+        Node<K, V> next;
+
+        Node(K key, int hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 一个stripe：key到节点的表和淘汰策略，所有字段都在锁里访问。
+     * LRU只用window一个队列；W-TinyLFU的window占容量的1%，主区是分段LRU，protected占主区的80%，
+     * 在probation里再次命中的key升到protected
+     */
+    private static final class Stripe<K, V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Map<K, Node<K, V>> map = new HashMap<>();
+
+        private final long capacity;
+
+        private final long windowCapacity;
+
+        private final long protectedCapacity;
+
+        private final FrequencySketch sketch;
+
+        private final Queue<K, V> window = new Queue<>();
+
+        private final Queue<K, V> probation = new Queue<>();
+
+        private final Queue<K, V> protect = new Queue<>();
+
+        // 已经计算完、在队列里的key数
+        private long size;
+
+        Stripe(long capacity, Policy policy) {
+            this.capacity = capacity;
+            if (policy == Policy.TINY_LFU && capacity != Long.MAX_VALUE) {
+                this.windowCapacity = Math.max(1, capacity / 100);
+                this.protectedCapacity = (capacity - windowCapacity) * 4 / 5;
+                this.sketch = new FrequencySketch(capacity);
+            } else {
+                this.windowCapacity = capacity;
+                this.protectedCapacity = 0;
+                this.sketch = null;
+            }
+        }
+
+        void lock() {
+            lock.lock();
+        }
+
+        void unlock() {
+            lock.unlock();
+        }
+
+        void onMiss(int hash) {
+            if (sketch != null) {
+                sketch.increment(hash);
+            }
+        }
+
+        void onHit(Node<K, V> node) {
+            if (sketch != null) {
+                sketch.increment(node.hash);
+            }
+            if (node.queue == probation) {
+                probation.unlink(node);
+                protect.addFirst(node);
+                if (protect.size > protectedCapacity) {
+                    probation.addFirst(protect.removeLast());
+                }
+            } else {
+                node.queue.moveToFirst(node);
+            }
+        }
+
+        /*
+         * 新计算完的key进入window，返回淘汰的个数
+         */
+        int admit(Node<K, V> node) {
+            window.addFirst(node);
+            size++;
+            int evicted = 0;
+            if (sketch == null) {
+                while (size > capacity) {
+                    remove(window.last);
+                    evicted++;
+                }
+                return evicted;
+            }
+            while (window.size > windowCapacity) {
+                Node<K, V> candidate = window.removeLast();
+                probation.addFirst(candidate);
+                if (size <= capacity) {
+                    continue;
+                }
+                // 候选者和主区里最冷的key比频率，相等时留下老的，偶尔出现一次的key进不了主区
+                Node<K, V> victim = probation.last != candidate ? probation.last : protect.last;
+                if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                    victim = candidate;
+                }
+                remove(victim);
+                evicted++;
+            }
+            return evicted;
+        }
+
+        void remove(Node<K, V> node) {
+            map.remove(node.key);
+            if (node.queue != null) {
+                node.queue.unlink(node);
+                size--;
+            }
+        }
+
+        void clear() {
+            map.clear();
+            window.clear();
+            probation.clear();
+            protect.clear();
+            size = 0;
+        }
+    }
+
+    private static final class Queue<K, V> {
+
+        private Node<K, V> first;
+
+        private Node<K, V> last;
+
+        private long size;
+
+        void addFirst(Node<K, V> node) {
+            node.queue = this;
+            node.prev = null;
+            node.next = first;
+            if (first == null) {
+                last = node;
+            } else {
+                first.prev = node;
+            }
+            first = node;
+            size++;
+        }
+
+        Node<K, V> removeLast() {
+            Node<K, V> node = last;
+            unlink(node);
+            return node;
+        }
+
+        void moveToFirst(Node<K, V> node) {
+            if (node != first) {
+                unlink(node);
+                addFirst(node);
+            }
+        }
+
+        void unlink(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            size--;
+        }
+
+        void clear() {
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * 4行的count-min sketch，每个计数器最大15。累计增加的次数达到容量的10倍时所有计数减半，
+     * 过去的热点慢慢冷下来
+     */
+    private static final class FrequencySketch {
+
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final byte[] counters;
+
+        private final int width;
+
+        private final long sampleSize;
+
+        private long additions;
+
+        FrequencySketch(long capacity) {
+            int size = (int) Math.min(Math.max(capacity, 16), 1 << 24);
+            this.width = Integer.highestOneBit((size - 1) << 1);
+            this.counters = new byte[width * SEEDS.length];
+            this.sampleSize = 10L * size;
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                min = Math.min(min, counters[index(hash, i)]);
+            }
+            return min;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(hash, i);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions >>>= 1;
+            }
+        }
+
+        // 取乘积的高位，同一个stripe里的key哈希低位相同也能分散开
+        private int index(int hash, int row) {
+            long mixed = (hash & 0xffffffffL) * SEEDS[row];
+            return row * width + ((int) (mixed >>> 40) & (width - 1));
+        }
+    }
+
+    public static final class Stats {
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long evictions;
+
+        private final long loads;
+
+        private final long loadFailures;
+
+        private final long loadNanos;
+
+        Stats(long hits, long misses, long evictions, long loads, long loadFailures, long loadNanos) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.loads = loads;
+            this.loadFailures = loadFailures;
+            this.loadNanos = loadNanos;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        // 包括等待别的线程计算同一个key的
+        public long getMisses() {
+            return misses;
+        }
+
+        // 容量淘汰和过期都算，invalidate不算
+        public long getEvictions() {
+            return evictions;
+        }
+
+        // 实际调用函数的次数，包括刷新
+        public long getLoads() {
+            return loads;
+        }
+
+        public long getLoadFailures() {
+            return loadFailures;
+        }
+
+        public double getAverageLoadNanos() {
+            return loads == 0 ? 0 : (double) loadNanos / loads;
+        }
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.3f evictions=%d loads=%d loadFailures=%d avgLoad=%.1fus",
+                    hits, misses, hitRate(), evictions, loads, loadFailures, getAverageLoadNanos() / 1e3);
+        }
+    }
+}
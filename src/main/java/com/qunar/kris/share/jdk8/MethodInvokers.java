@@ -0,0 +1,215 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 替代 Class.forName(...).getMethod(...).invoke(...) 的调用缓存。
+ * 类和方法只解析一次，转换成MethodHandle，或者用LambdaMetafactory生成函数式接口的实现，之后直接复用。
+ * <ul>
+ *     <li>类名到Class的缓存按ClassLoader分开，ClassLoader弱引用，插件卸载后自动失效，也可以主动invalidate</li>
+ *     <li>方法句柄挂在ClassValue上，跟着Class走，不会阻止Class被卸载</li>
+ * </ul>
+ *
+ * @author gongzuo.zy
+ * @version $Id: MethodInvokers.java, v0.1 2026-10-18 18:20  gongzuo.zy Exp $
+ */
+public class MethodInvokers {
+
+    // 统一的调用签名，静态方法target传null
+    @FunctionalInterface
+    public interface Invoker {
+        Object invoke(Object target, Object... args) throws Throwable;
+    }
+
+    private static final MethodType GENERIC = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private static final Map<ClassLoader, ConcurrentMap<String, WeakReference<Class<?>>>> CLASSES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final ClassValue<ConcurrentMap<MemberKey, Object>> MEMBERS = new ClassValue<ConcurrentMap<MemberKey, Object>>() {
+        @Override
+        protected ConcurrentMap<MemberKey, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private MethodInvokers() {
+    }
+
+    public static Invoker invoker(ClassLoader loader, String className, String methodName, Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        return invoker(loadClass(loader, className), methodName, parameterTypes);
+    }
+
+    public static Invoker invoker(Class<?> type, String methodName, Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        MemberKey key = new MemberKey(Invoker.class, methodName, parameterTypes, null, 0);
+        Object cached = MEMBERS.get(type).get(key);
+        if (cached == null) {
+            cached = toInvoker(type.getMethod(methodName, parameterTypes));
+            Object existing = MEMBERS.get(type).putIfAbsent(key, cached);
+            cached = existing == null ? cached : existing;
+        }
+        return (Invoker) cached;
+    }
+
+    /*
+     * 用LambdaMetafactory生成functionalInterface的实现，调用开销与直接调用相同。
+     * lookup需要能访问目标方法，并且具有private权限（一般传调用方的MethodHandles.lookup()）。
+     * 生成的实现按lookup的类和权限分别缓存，一个调用方用自己的权限生成的lambda不会交给别的调用方。
+     * functionalInterface可以是原始类型，比如ToIntFunction.class可以直接赋给ToIntFunction&lt;String&gt;
+     */
+    @SuppressWarnings("unchecked")
+    public static <F> F lambda(MethodHandles.Lookup lookup, Class<? super F> functionalInterface, Class<?> type,
+                               String methodName, Class<?>... parameterTypes) throws ReflectiveOperationException {
+        MemberKey key = new MemberKey(functionalInterface, methodName, parameterTypes, lookup.lookupClass(), lookup.lookupModes());
+        Object cached = MEMBERS.get(type).get(key);
+        if (cached == null) {
+            cached = toLambda(lookup, functionalInterface, type.getMethod(methodName, parameterTypes));
+            Object existing = MEMBERS.get(type).putIfAbsent(key, cached);
+            cached = existing == null ? cached : existing;
+        }
+        return (F) functionalInterface.cast(cached);
+    }
+
+    // 插件重新加载时调用，丢弃该ClassLoader下所有已解析的类
+    public static void invalidate(ClassLoader loader) {
+        CLASSES.remove(loader);
+    }
+
+    public static void invalidate(Class<?> type) {
+        MEMBERS.remove(type);
+    }
+
+    private static Class<?> loadClass(ClassLoader loader, String className) throws ClassNotFoundException {
+        ConcurrentMap<String, WeakReference<Class<?>>> classes = CLASSES.computeIfAbsent(loader, l -> new ConcurrentHashMap<>());
+        WeakReference<Class<?>> ref = classes.get(className);
+        Class<?> type = ref == null ? null : ref.get();
+        if (type == null) {
+            type = Class.forName(className, true, loader);
+            classes.put(className, new WeakReference<>(type));
+        }
+        return type;
+    }
+
+    private static Invoker toInvoker(Method method) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        MethodHandle generic = handle.asSpreader(Object[].class, method.getParameterCount()).asType(GENERIC);
+        return (target, args) -> generic.invokeExact(target, args);
+    }
+
+    private static Object toLambda(MethodHandles.Lookup lookup, Class<?> functionalInterface, Method method)
+            throws ReflectiveOperationException {
+        Method sam = singleAbstractMethod(functionalInterface);
+        MethodHandle impl = lookup.unreflect(method);
+        MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, sam.getName(),
+                    MethodType.methodType(functionalInterface), samType, impl, instantiatedType(samType, impl.type()));
+            return site.getTarget().invoke();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("cannot create lambda for " + method, t);
+        }
+    }
+
+    // 接口方法是引用类型而目标方法是基本类型的位置，需要装箱，例如 Function<String, Integer> 对应 int length(String)
+    private static MethodType instantiatedType(MethodType samType, MethodType implType) {
+        MethodType type = implType;
+        for (int i = 0; i < samType.parameterCount(); i++) {
+            if (!samType.parameterType(i).isPrimitive()) {
+                type = type.changeParameterType(i, MethodType.methodType(implType.parameterType(i)).wrap().returnType());
+            }
+        }
+        if (!samType.returnType().isPrimitive()) {
+            type = type.changeReturnType(MethodType.methodType(implType.returnType()).wrap().returnType());
+        }
+        return type;
+    }
+
+    private static Method singleAbstractMethod(Class<?> functionalInterface) {
+        Method found = null;
+        for (Method m : functionalInterface.getMethods()) {
+            if (Modifier.isAbstract(m.getModifiers()) && !isObjectMethod(m)) {
+                if (found != null) {
+                    throw new IllegalArgumentException(functionalInterface + " is not a functional interface");
+                }
+                found = m;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException(functionalInterface + " is not a functional interface");
+        }
+        return found;
+    }
+
+    // 接口里重新声明的equals这类Object方法不算抽象方法
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // 缓存的key：生成的接口类型 + 方法签名
+    private static final class MemberKey {
+
+        private final Class<?> kind;
+
+        private final String name;
+
+        private final Class<?>[] parameterTypes;
+
+        // 生成lambda的lookup，invoker不区分调用方，为null
+        private final Class<?> caller;
+
+        private final int modes;
+
+        MemberKey(Class<?> kind, String name, Class<?>[] parameterTypes, Class<?> caller, int modes) {
+            this.kind = kind;
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.caller = caller;
+            this.modes = modes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MemberKey)) {
+                return false;
+            }
+            MemberKey other = (MemberKey) o;
+            return kind == other.kind && caller == other.caller && modes == other.modes && name.equals(other.name)
+                    && Arrays.equals(parameterTypes, other.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((kind.hashCode() * 31 + name.hashCode()) * 31 + Arrays.hashCode(parameterTypes)) * 31
+                    + System.identityHashCode(caller) * 31 + modes;
+        }
+    }
+}
@@ -9,9 +9,11 @@ import com.google.common.base.Throwables;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -40,10 +42,32 @@ public class MiscellaneousStudy {
 
         }
 
+        // 大文件用内存映射按块并行扫描，只有命中的行才会生成String
+        try {
+            Optional<String> passwordEntry = new MappedLineScanner(new File("").toPath()).findFirst("password");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // 要对每一行做计算时，Files.lines并行效果很差，换成按字节对半切分的行数据源
+        try (Stream<String> lines = ParallelSources.lines(new File("").toPath())) {
+            long count = lines.parallel().filter(s -> s.contains("password")).count();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
         // 方便的base64
         Base64.Encoder encoder = Base64.getEncoder();
         Base64.Decoder decoder = Base64.getDecoder();
 
+        // 大文件不要整块读进内存，用channel流式编码，内存占用是固定的
+        try (FileChannel in = FileChannel.open(Paths.get("in.bin"));
+             FileChannel out = FileChannel.open(Paths.get("out.txt"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            new Base64Channels(Base64Channels.Variant.MIME).encode(in, out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
 
         // 过滤空的字符串，太方便了实在是
         Stream.of("a", null, "b").filter(Objects::nonNull);
@@ -59,6 +83,16 @@ public class MiscellaneousStudy {
             throw new RuntimeException(e);
         }
 
+        // 热点路径上不要每次都反射，解析一次后缓存MethodHandle
+        try {
+            MethodInvokers.invoker(MiscellaneousStudy.class.getClassLoader(), "", "main", String[].class)
+                    .invoke(null, (Object) new String[] {});
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+
         // 问价操作
         Path homeDirectory = Paths.get("/home/cay");
         //Files.copy(in, path);
@@ -0,0 +1,366 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 能很好地并行切分的stream数据源。
+ * Stream.generate是无限流，加上limit之后几乎不能并行；Files.lines和Spliterators.spliteratorUnknownSize
+ * 只能按递增的批次从头读，前面的线程拿到的元素很少。这里的数据源都能从中间对半切：
+ * <ul>
+ *     <li>indexed/generate：按下标生成，与IntStream.range一样是SIZED、SUBSIZED的</li>
+ *     <li>lines：文件按字节对半切，再对齐到行首，每一段单独map。行数事先不知道，所以只给出估计值</li>
+ *     <li>batched：从迭代器里每次取固定个数的元素，放进数组交给其他线程，切出去的部分是SIZED、SUBSIZED的</li>
+ * </ul>
+ * 返回的都是串行流，需要时调用parallel()
+ *
+ * @author gongzuo.zy
+ * @version $Id: ParallelSources.java, v0.1 2026-10-19 00:10  gongzuo.zy Exp $
+ */
+public class ParallelSources {
+
+    // 文件段小于这个字节数就不再切了
+    static final int MIN_SPLIT_BYTES = 1 << 16;
+
+    // 一次map的最大字节数，超过的段分多次map
+    static final int MAP_WINDOW = 64 << 20;
+
+    private ParallelSources() {
+    }
+
+    /*
+     * 相当于 IntStream.range(0, count).mapToObj(factory)，下标是long
+     */
+    public static <T> Stream<T> indexed(long count, LongFunction<? extends T> factory) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        return StreamSupport.stream(new IndexedSpliterator<>(0, count, Objects.requireNonNull(factory)), false);
+    }
+
+    /*
+     * 替代 Stream.generate(supplier).limit(count)；并行时supplier会在多个线程里同时调用
+     */
+    public static <T> Stream<T> generate(long count, Supplier<? extends T> supplier) {
+        Objects.requireNonNull(supplier);
+        return indexed(count, i -> supplier.get());
+    }
+
+    public static Stream<String> lines(Path file) throws IOException {
+        return lines(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 按\n分行并去掉行尾的\r，用完需要关闭stream。和Files.lines的区别：单独的\r不算行结束；
+     * 一行不能超过MAP_WINDOW（64M），超过时抛出UncheckedIOException。
+     * 非法字节和Files.lines一样抛出包着MalformedInputException的UncheckedIOException。
+     * charset必须是ASCII兼容、并且多字节字符里不会出现\n的编码（UTF-8、GBK、ISO-8859-1等）
+     */
+    public static Stream<String> lines(Path file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            LineSpliterator spliterator = new LineSpliterator(channel, 0, size, averageLineLength(channel, size), charset);
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+     * 替代 StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, ORDERED), parallel)，
+     * 每次切分从迭代器里取batchSize个元素；迭代器只会被一个线程访问
+     */
+    public static <T> Stream<T> batched(Iterator<? extends T> iterator, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        return StreamSupport.stream(new BatchSpliterator<>(Objects.requireNonNull(iterator), batchSize), false);
+    }
+
+    // 用文件开头的一段估算平均行长，只用于estimateSize
+    private static int averageLineLength(FileChannel channel, long size) throws IOException {
+        ByteBuffer sample = ByteBuffer.allocate((int) Math.min(size, 8192));
+        channel.read(sample, 0);
+        int lines = 0;
+        for (int i = 0; i < sample.position(); i++) {
+            if (sample.get(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines == 0 ? Math.max(1, sample.position()) : sample.position() / lines;
+    }
+
+    private static final class IndexedSpliterator<T> implements Spliterator<T> {
+
+        private final LongFunction<? extends T> factory;
+
+        private long index;
+
+        private final long end;
+
+        IndexedSpliterator(long index, long end, LongFunction<? extends T> factory) {
+            this.index = index;
+            this.end = end;
+            this.factory = factory;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= end) {
+                return false;
+            }
+            action.accept(factory.apply(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            long i = index;
+            index = end;
+            for (; i < end; i++) {
+                action.accept(factory.apply(i));
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            long mid = (index + end) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            Spliterator<T> prefix = new IndexedSpliterator<>(index, mid, factory);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+        }
+    }
+
+    /**
+     * 文件中[start, end)的字节，start总是行首，end总是行首或文件末尾。
+     * 遍历时按不超过MAP_WINDOW、对齐到行的窗口依次map
+     */
+    private static final class LineSpliterator implements Spliterator<String> {
+
+        private final FileChannel channel;
+
+        private final int averageLineLength;
+
+        private final Charset charset;
+
+        // 默认REPORT，遇到非法字节抛出异常；只在遍历这个spliterator的线程里使用
+        private final CharsetDecoder decoder;
+
+        private long start;
+
+        private final long end;
+
+        private MappedByteBuffer window;
+
+        private long windowEnd;
+
+        LineSpliterator(FileChannel channel, long start, long end, int averageLineLength, Charset charset) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.averageLineLength = averageLineLength;
+            this.charset = charset;
+            this.decoder = charset.newDecoder();
+            this.windowEnd = start;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (window == null || !window.hasRemaining()) {
+                if (windowEnd >= end) {
+                    return false;
+                }
+                nextWindow();
+            }
+            action.accept(nextLine());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action) {
+            while (true) {
+                if (window == null || !window.hasRemaining()) {
+                    if (windowEnd >= end) {
+                        return;
+                    }
+                    nextWindow();
+                }
+                while (window.hasRemaining()) {
+                    action.accept(nextLine());
+                }
+            }
+        }
+
+        // 只有还没开始遍历时才切分
+        @Override
+        public Spliterator<String> trySplit() {
+            if (window != null || end - start < 2L * MIN_SPLIT_BYTES) {
+                return null;
+            }
+            long mid;
+            try {
+                mid = MappedLineScanner.nextLineStart(channel, (start + end) >>> 1, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (mid >= end) {
+                return null;
+            }
+            Spliterator<String> prefix = new LineSpliterator(channel, start, mid, averageLineLength, charset);
+            start = mid;
+            windowEnd = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(1, (end - windowEnd + (window == null ? 0 : window.remaining())) / averageLineLength);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        /*
+         * 剩下的不超过MAP_WINDOW时整段map；否则map MAP_WINDOW个字节，截到最后一个\n，
+         * 这样一次map不会超过MAP_WINDOW，窗口里一个\n都没有说明这一行太长
+         */
+        private void nextWindow() {
+            try {
+                long from = windowEnd;
+                if (end - from <= MAP_WINDOW) {
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, from, end - from);
+                    windowEnd = end;
+                    return;
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, from, MAP_WINDOW);
+                int last = MAP_WINDOW - 1;
+                while (last >= 0 && mapped.get(last) != '\n') {
+                    last--;
+                }
+                if (last < 0) {
+                    throw new IOException("line longer than " + MAP_WINDOW + " bytes at offset " + from);
+                }
+                mapped.limit(last + 1);
+                window = mapped;
+                windowEnd = from + last + 1;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String nextLine() {
+            int lineStart = window.position();
+            int limit = window.limit();
+            int lineEnd = lineStart;
+            while (lineEnd < limit && window.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd < limit ? lineEnd + 1 : limit;
+            if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            ByteBuffer line = window.duplicate();
+            line.limit(lineEnd);
+            window.position(next);
+            try {
+                return decoder.decode(line).toString();
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class BatchSpliterator<T> implements Spliterator<T> {
+
+        private final Iterator<? extends T> iterator;
+
+        private final int batchSize;
+
+        BatchSpliterator(Iterator<? extends T> iterator, int batchSize) {
+            this.iterator = iterator;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            action.accept(iterator.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            iterator.forEachRemaining(action);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Object[] batch = new Object[batchSize];
+            int n = 0;
+            while (n < batchSize && iterator.hasNext()) {
+                batch[n++] = iterator.next();
+            }
+            return Spliterators.spliterator(batch, 0, n, ORDERED);
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 减少临时Person对象的几种PersonFactory，对应记录转换里"创建-映射-丢弃"的用法：
+ * <ul>
+ *     <li>pooled：每个线程一个小对象池，用完显式release放回池里</li>
+ *     <li>interning：重复的firstName/lastName通过有界的Interner共用同一个String，
+ *     从char[]解析时命中就不再创建String</li>
+ *     <li>flyweight：名字写进共享的PersonBuffer，create返回当前线程复用的只读PersonView，
+ *     它不是Person，需要留下来的记录用toPerson复制出来</li>
+ * </ul>
+ *
+ * <pre>
+ *   PersonFactories.Pool pool = PersonFactories.pooled(64);
+ *   LambdaStudy.Person person = pool.create("Peter", "Parker");
+ *   ...
+ *   pool.release(person);
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: PersonFactories.java, v0.1 2026-10-19 03:30  gongzuo.zy Exp $
+ */
+public class PersonFactories {
+
+    private PersonFactories() {
+    }
+
+    /**
+     * 每个线程最多缓存capacity个对象
+     */
+    public static Pool pooled(int capacity) {
+        return new Pool(capacity);
+    }
+
+    public static <P extends LambdaStudy.Person> LambdaStudy.PersonFactory<P> interning(LambdaStudy.PersonFactory<P> factory,
+                                                                                        Interner interner) {
+        return (firstName, lastName) -> factory.create(interner.intern(firstName), interner.intern(lastName));
+    }
+
+    public static PersonBuffer buffer(int initialCapacity) {
+        return new PersonBuffer(initialCapacity);
+    }
+
+    /**
+     * 线程本地的对象池。release之后对象会被别的create复用，调用方不能再持有它；
+     * 在别的线程release的对象进入那个线程的池
+     */
+    public static final class Pool implements LambdaStudy.PersonFactory<LambdaStudy.Person> {
+
+        private final int capacity;
+
+        private final ThreadLocal<Stack> stacks;
+
+        private Pool(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive: " + capacity);
+            }
+            this.capacity = capacity;
+            this.stacks = ThreadLocal.withInitial(() -> new Stack(capacity));
+        }
+
+        @Override
+        public LambdaStudy.Person create(String firstName, String lastName) {
+            Stack stack = stacks.get();
+            if (stack.size == 0) {
+                return new LambdaStudy.Person(firstName, lastName);
+            }
+            LambdaStudy.Person person = stack.items[--stack.size];
+            stack.items[stack.size] = null;
+            person.setFirstName(firstName);
+            person.setLastName(lastName);
+            return person;
+        }
+
+        /*
+         * 放回当前线程的池，池满了就丢给gc。只接受Person本身，子类（比如Man）不会被当成Person复用
+         */
+        public void release(LambdaStudy.Person person) {
+            if (person == null || person.getClass() != LambdaStudy.Person.class) {
+                return;
+            }
+            // 不再引用名字，池里的对象不会让字符串活得更久
+            person.setFirstName(null);
+            person.setLastName(null);
+            Stack stack = stacks.get();
+            if (stack.size < capacity) {
+                stack.items[stack.size++] = person;
+            }
+        }
+
+        private static final class Stack {
+
+            private final LambdaStudy.Person[] items;
+
+            private int size;
+
+            Stack(int capacity) {
+                this.items = new LambdaStudy.Person[capacity];
+            }
+        }
+    }
+
+    /**
+     * 有界、无锁的字符串驻留表。每个字符串可以放在相邻的两个槽位之一，都被占了就把新值放到第一个、
+     * 原来第一个挪到第二个，所以内存有上限，也不需要淘汰的簿记；代价是冲突严重时命中率下降，capacity取不同名字数的2到4倍即可。
+     * 和String.intern不同，这里的字符串不会进永久代/字符串常量池，表本身被回收时它们也一起回收
+     */
+    public static final class Interner {
+
+        private final AtomicReferenceArray<String> table;
+
+        private final int mask;
+
+        public Interner(int capacity) {
+            if (capacity < 1 || capacity > 1 << 30) {
+                throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+            }
+            int size = Math.max(2, Integer.highestOneBit((capacity - 1) << 1 | 1));
+            this.table = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        public String intern(String value) {
+            if (value == null) {
+                return null;
+            }
+            int slot = spread(value.hashCode()) & mask;
+            String first = table.get(slot);
+            if (value.equals(first)) {
+                return first;
+            }
+            String second = table.get(slot ^ 1);
+            if (value.equals(second)) {
+                return second;
+            }
+            put(slot, first, second, value);
+            return value;
+        }
+
+        /*
+         * 从字符数组的一段驻留，命中时不创建String；哈希和String.hashCode一致，和intern(String)共用同一个槽位
+         */
+        public String intern(char[] chars, int offset, int length) {
+            int hash = 0;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + chars[i];
+            }
+            int slot = spread(hash) & mask;
+            String first = table.get(slot);
+            if (regionEquals(first, chars, offset, length)) {
+                return first;
+            }
+            String second = table.get(slot ^ 1);
+            if (regionEquals(second, chars, offset, length)) {
+                return second;
+            }
+            String value = new String(chars, offset, length);
+            put(slot, first, second, value);
+            return value;
+        }
+
+        // 覆盖写不需要和读者同步，并发时丢掉一个值也只是少命中一次
+        private void put(int slot, String first, String second, String value) {
+            if (first != null && second == null) {
+                table.lazySet(slot ^ 1, value);
+                return;
+            }
+            if (first != null) {
+                table.lazySet(slot ^ 1, first);
+            }
+            table.lazySet(slot, value);
+        }
+
+        private static boolean regionEquals(String cached, char[] chars, int offset, int length) {
+            if (cached == null || cached.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (cached.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int spread(int hash) {
+            return (hash ^ hash >>> 16) * 0x45d9f3b;
+        }
+    }
+
+    /**
+     * 一块共享的、只追加的字符缓冲区，每个Person占两段字符，不再是一个对象加两个String。
+     * 追加是同步的，可以多个线程一起写；PersonView只是指向某一行的游标，移动它不会分配内存。
+     * 处理完一批记录后clear，缓冲区的数组留着给下一批用
+     */
+    public static final class PersonBuffer {
+
+        private char[] chars;
+
+        // 第row行firstName是[bounds[2row], bounds[2row+1])，lastName是[bounds[2row+1], bounds[2row+2])
+        private int[] bounds;
+
+        // 先写数据再写size，读者读到size就能看到之前的行
+        private volatile int size;
+
+        private final ThreadLocal<PersonView> views = ThreadLocal.withInitial(() -> new PersonView(this));
+
+        private PersonBuffer(int initialCapacity) {
+            if (initialCapacity < 1) {
+                throw new IllegalArgumentException("initialCapacity must be positive: " + initialCapacity);
+            }
+            this.chars = new char[initialCapacity * 16];
+            this.bounds = new int[initialCapacity * 2 + 1];
+        }
+
+        public synchronized int append(String firstName, String lastName) {
+            int row = size;
+            int start = bounds[2 * row];
+            int firstLength = firstName.length();
+            int total = firstLength + lastName.length();
+            if (start + total > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, start + total));
+            }
+            if (2 * row + 2 >= bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            firstName.getChars(0, firstLength, chars, start);
+            lastName.getChars(0, lastName.length(), chars, start + firstLength);
+            bounds[2 * row + 1] = start + firstLength;
+            bounds[2 * row + 2] = start + total;
+            size = row + 1;
+            return row;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /*
+         * 丢弃所有行。之前拿到的PersonView不能再用
+         */
+        public synchronized void clear() {
+            size = 0;
+        }
+
+        /**
+         * 新的游标，可以在多行之间来回移动
+         */
+        public PersonView view(int row) {
+            return new PersonView(this).moveTo(row);
+        }
+
+        /**
+         * 追加并返回当前线程复用的PersonView，下一次在同一个线程上create之后它就指向新的一行
+         */
+        public ViewFactory factory() {
+            return (firstName, lastName) -> views.get().moveTo(append(firstName, lastName));
+        }
+    }
+
+    /**
+     * 和LambdaStudy.PersonFactory一样的用法，只是返回的是PersonView
+     */
+    @FunctionalInterface
+    public interface ViewFactory {
+        PersonView create(String firstName, String lastName);
+    }
+
+    /**
+     * PersonBuffer某一行上的只读享元。firstName()/lastName()是不分配内存的CharSequence视图，
+     * getter会生成新的String。游标会移动，所以不继承可变的Person，也不提供equals/hashCode
+     */
+    public static final class PersonView {
+
+        private final PersonBuffer buffer;
+
+        private final Field firstName = new Field(0);
+
+        private final Field lastName = new Field(1);
+
+        private int row = -1;
+
+        private PersonView(PersonBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public PersonView moveTo(int row) {
+            if (row < 0 || row >= buffer.size) {
+                throw new IndexOutOfBoundsException("row " + row + " of " + buffer.size);
+            }
+            this.row = row;
+            return this;
+        }
+
+        public int row() {
+            return row;
+        }
+
+        public CharSequence firstName() {
+            return firstName;
+        }
+
+        public CharSequence lastName() {
+            return lastName;
+        }
+
+        public String getFirstName() {
+            return firstName.toString();
+        }
+
+        public String getLastName() {
+            return lastName.toString();
+        }
+
+        /*
+         * 复制当前这一行，之后游标移动或者buffer被clear都不影响它
+         */
+        public LambdaStudy.Person toPerson() {
+            return new LambdaStudy.Person(getFirstName(), getLastName());
+        }
+
+        // 和Person（lombok生成）的格式一样
+        @Override
+        public String toString() {
+            return "PersonView(firstName=" + firstName + ", lastName=" + lastName + ")";
+        }
+
+        private final class Field implements CharSequence {
+
+            private final int index;
+
+            Field(int index) {
+                this.index = index;
+            }
+
+            private int start() {
+                return buffer.bounds[2 * row + index];
+            }
+
+            @Override
+            public int length() {
+                return buffer.bounds[2 * row + index + 1] - start();
+            }
+
+            @Override
+            public char charAt(int i) {
+                if (i < 0 || i >= length()) {
+                    throw new IndexOutOfBoundsException(String.valueOf(i));
+                }
+                return buffer.chars[start() + i];
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return toString().subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return new String(buffer.chars, start(), length());
+            }
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 按列存储的StreamStudy.Person表，用来替代千万级的List&lt;Person&gt;。
+ * 每个字段一列，重复多的列（姓名）用字典编码，只存int编号；唯一的列（id）用堆外UTF-8存储。
+ * 查询直接在列上做，行用int下标表示，只有真正需要时才创建Person对象
+ *
+ * <pre>
+ *   // peoples.stream().collect(partitioningBy(e -> e.getId().length() > 150))
+ *   table.partitionByLength(Column.ID, len -> len > 150);
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: PersonTable.java, v0.1 2026-10-18 20:40  gongzuo.zy Exp $
+ */
+public class PersonTable {
+
+    public enum Column {
+        ID, NAME, FIRST_NAME, LAST_NAME
+    }
+
+    public enum Encoding {
+        // 字典编码，适合重复值多的列
+        DICTIONARY,
+        // 堆外UTF-8，适合几乎不重复的列
+        UTF8
+    }
+
+    private final int size;
+
+    private final StringColumn[] columns;
+
+    private PersonTable(int size, StringColumn[] columns) {
+        this.size = size;
+        this.columns = columns;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public IntStream rows() {
+        return IntStream.range(0, size);
+    }
+
+    public String get(int row, Column column) {
+        return columns[column.ordinal()].get(row);
+    }
+
+    // 字典列上predicate对每个不同的值只执行一次
+    public IntStream filter(Column column, Predicate<String> predicate) {
+        StringColumn c = columns[column.ordinal()];
+        if (c instanceof DictionaryColumn) {
+            DictionaryColumn dictionary = (DictionaryColumn) c;
+            boolean[] accepted = new boolean[dictionary.values.size()];
+            for (int i = 0; i < accepted.length; i++) {
+                accepted[i] = predicate.test(dictionary.values.get(i));
+            }
+            return rows().filter(row -> accepted[dictionary.codes[row]]);
+        }
+        return rows().filter(row -> predicate.test(c.get(row)));
+    }
+
+    // 等值过滤：字典列比较编号，UTF-8列比较字节，都不需要解码
+    public IntStream filterEquals(Column column, String value) {
+        StringColumn c = columns[column.ordinal()];
+        if (c instanceof DictionaryColumn) {
+            Integer code = ((DictionaryColumn) c).index.get(value);
+            if (code == null) {
+                return IntStream.empty();
+            }
+            int[] codes = ((DictionaryColumn) c).codes;
+            return rows().filter(row -> codes[row] == code);
+        }
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        Utf8Column utf8 = (Utf8Column) c;
+        return rows().filter(row -> utf8.bytesEqual(row, bytes));
+    }
+
+    // 按字符串长度过滤，长度单独存了一列
+    public IntStream filterLength(Column column, IntPredicate length) {
+        StringColumn c = columns[column.ordinal()];
+        return rows().filter(row -> length.test(c.length(row)));
+    }
+
+    // 等价于 partitioningBy(e -> length.test(e.getXxx().length()))，但结果是行号
+    public Map<Boolean, int[]> partitionByLength(Column column, IntPredicate length) {
+        StringColumn c = columns[column.ordinal()];
+        int[] yes = new int[size];
+        int[] no = new int[size];
+        int y = 0;
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            if (length.test(c.length(row))) {
+                yes[y++] = row;
+            } else {
+                no[n++] = row;
+            }
+        }
+        Map<Boolean, int[]> result = new HashMap<>(4);
+        result.put(true, Arrays.copyOf(yes, y));
+        result.put(false, Arrays.copyOf(no, n));
+        return result;
+    }
+
+    // 等价于 groupingBy(Person::getXxx, counting())，字典列直接按编号计数
+    public Map<String, Long> countBy(Column column) {
+        StringColumn c = columns[column.ordinal()];
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (c instanceof DictionaryColumn) {
+            DictionaryColumn dictionary = (DictionaryColumn) c;
+            long[] counts = new long[dictionary.values.size()];
+            for (int row = 0; row < size; row++) {
+                counts[dictionary.codes[row]]++;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    result.put(dictionary.values.get(i), counts[i]);
+                }
+            }
+            return result;
+        }
+        for (int row = 0; row < size; row++) {
+            result.merge(c.get(row), 1L, Long::sum);
+        }
+        return result;
+    }
+
+    // 等价于 groupingBy(Person::getXxx)，每组是行号数组
+    public Map<String, int[]> groupBy(Column column) {
+        StringColumn c = columns[column.ordinal()];
+        if (!(c instanceof DictionaryColumn)) {
+            Map<String, List<Integer>> groups = new LinkedHashMap<>();
+            for (int row = 0; row < size; row++) {
+                groups.computeIfAbsent(c.get(row), k -> new ArrayList<>()).add(row);
+            }
+            Map<String, int[]> result = new LinkedHashMap<>();
+            groups.forEach((k, v) -> result.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+            return result;
+        }
+        DictionaryColumn dictionary = (DictionaryColumn) c;
+        int distinct = dictionary.values.size();
+        // 先计数再填充，每组只分配一次
+        int[] counts = new int[distinct];
+        for (int row = 0; row < size; row++) {
+            counts[dictionary.codes[row]]++;
+        }
+        int[][] groups = new int[distinct][];
+        for (int i = 0; i < distinct; i++) {
+            groups[i] = new int[counts[i]];
+        }
+        int[] fill = new int[distinct];
+        for (int row = 0; row < size; row++) {
+            int code = dictionary.codes[row];
+            groups[code][fill[code]++] = row;
+        }
+        Map<String, int[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < distinct; i++) {
+            if (groups[i].length > 0) {
+                result.put(dictionary.values.get(i), groups[i]);
+            }
+        }
+        return result;
+    }
+
+    // 等价于 toMap(Person::getXxx, Person::getYyy)
+    public Map<String, String> toMap(Column key, Column value) {
+        StringColumn k = columns[key.ordinal()];
+        StringColumn v = columns[value.ordinal()];
+        Map<String, String> result = new HashMap<>(size * 4 / 3 + 1);
+        for (int row = 0; row < size; row++) {
+            String old = result.put(k.get(row), v.get(row));
+            if (old != null) {
+                throw new IllegalStateException("Duplicate key " + old);
+            }
+        }
+        return result;
+    }
+
+    // 按需创建Person
+    public StreamStudy.Person person(int row) {
+        StreamStudy.Person person = new StreamStudy.Person(get(row, Column.FIRST_NAME), get(row, Column.LAST_NAME));
+        person.setId(get(row, Column.ID));
+        person.setName(get(row, Column.NAME));
+        return person;
+    }
+
+    public Stream<StreamStudy.Person> persons(IntStream rows) {
+        return rows.mapToObj(this::person);
+    }
+
+    public static class Builder {
+
+        private final Encoding[] encodings = {Encoding.UTF8, Encoding.DICTIONARY, Encoding.DICTIONARY, Encoding.DICTIONARY};
+
+        private StringColumn[] columns;
+
+        private int size;
+
+        public Builder encoding(Column column, Encoding encoding) {
+            if (columns != null) {
+                throw new IllegalStateException("encoding must be set before adding rows");
+            }
+            encodings[column.ordinal()] = encoding;
+            return this;
+        }
+
+        public Builder add(String id, String name, String firstName, String lastName) {
+            if (columns == null) {
+                columns = newColumns();
+            }
+            columns[Column.ID.ordinal()].add(id);
+            columns[Column.NAME.ordinal()].add(name);
+            columns[Column.FIRST_NAME.ordinal()].add(firstName);
+            columns[Column.LAST_NAME.ordinal()].add(lastName);
+            size++;
+            return this;
+        }
+
+        public Builder add(StreamStudy.Person person) {
+            return add(person.getId(), person.getName(), person.getFirstName(), person.getLastName());
+        }
+
+        /*
+         * 列交给表之后builder就不再持有，之后的add从一张新表开始，不会改到已经build出来的表
+         */
+        public PersonTable build() {
+            StringColumn[] built = columns == null ? newColumns() : columns;
+            for (StringColumn column : built) {
+                column.trim();
+            }
+            PersonTable table = new PersonTable(size, built);
+            columns = null;
+            size = 0;
+            return table;
+        }
+
+        private StringColumn[] newColumns() {
+            StringColumn[] result = new StringColumn[encodings.length];
+            for (int i = 0; i < encodings.length; i++) {
+                result[i] = encodings[i] == Encoding.DICTIONARY ? new DictionaryColumn() : new Utf8Column();
+            }
+            return result;
+        }
+    }
+
+    private interface StringColumn {
+
+        void add(String value);
+
+        String get(int row);
+
+        // 与String.length()一致，null按0处理
+        int length(int row);
+
+        void trim();
+    }
+
+    private static class DictionaryColumn implements StringColumn {
+
+        private final Map<String, Integer> index = new HashMap<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        private final List<Integer> lengths = new ArrayList<>();
+
+        private int[] codes = new int[16];
+
+        private int[] valueLengths;
+
+        private int size;
+
+        @Override
+        public void add(String value) {
+            Integer code = index.get(value);
+            if (code == null) {
+                code = values.size();
+                index.put(value, code);
+                values.add(value);
+                lengths.add(value == null ? 0 : value.length());
+            }
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = code;
+        }
+
+        @Override
+        public String get(int row) {
+            return values.get(codes[row]);
+        }
+
+        @Override
+        public int length(int row) {
+            return valueLengths[codes[row]];
+        }
+
+        @Override
+        public void trim() {
+            codes = Arrays.copyOf(codes, size);
+            valueLengths = lengths.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static class Utf8Column implements StringColumn {
+
+        private ByteBuffer data = ByteBuffer.allocateDirect(1 << 16);
+
+        // 第row行的字节范围是[offsets[row], offsets[row+1])，-1表示null
+        private int[] offsets = new int[17];
+
+        private int[] lengths = new int[16];
+
+        private int size;
+
+        @Override
+        public void add(String value) {
+            if (size == lengths.length) {
+                lengths = Arrays.copyOf(lengths, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2 + 1);
+            }
+            if (value == null) {
+                lengths[size] = -1;
+                offsets[++size] = data.position();
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (data.remaining() < bytes.length) {
+                ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(data.capacity() * 2, data.position() + bytes.length));
+                data.flip();
+                bigger.put(data);
+                data = bigger;
+            }
+            data.put(bytes);
+            lengths[size] = value.length();
+            offsets[++size] = data.position();
+        }
+
+        @Override
+        public String get(int row) {
+            if (lengths[row] < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[offsets[row + 1] - offsets[row]];
+            ByteBuffer slice = data.duplicate();
+            slice.position(offsets[row]);
+            slice.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int length(int row) {
+            return Math.max(lengths[row], 0);
+        }
+
+        boolean bytesEqual(int row, byte[] bytes) {
+            if (bytes == null || lengths[row] < 0) {
+                return bytes == null && lengths[row] < 0;
+            }
+            int start = offsets[row];
+            if (offsets[row + 1] - start != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (data.get(start + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void trim() {
+            offsets = Arrays.copyOf(offsets, size + 1);
+            lengths = Arrays.copyOf(lengths, size);
+            if (data.capacity() > data.position()) {
+                ByteBuffer exact = ByteBuffer.allocateDirect(Math.max(1, data.position()));
+                data.flip();
+                exact.put(data);
+                data = exact;
+            }
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * 按int、long或String分组的收集器，用来替代 groupingBy(key, counting()/summarizingInt(...)) 这类写法。
+ * 分组结果放在开放寻址的哈希表里：表里只存组号，key和count、sum、min、max按组号存在并行的基本类型数组中，
+ * 不会为每个元素装箱，也不会为每个组创建List或统计对象。
+ * 组号按key第一次出现的顺序分配，parallelStream下每个线程各自收集，最后按顺序合并，结果与串行一致
+ *
+ * <pre>
+ *   // peoples.stream().collect(groupingBy(Person::getLastName, summarizingInt(e -> e.getId().length())))
+ *   StringGroups groups = peoples.stream().collect(groupingByString(Person::getLastName, e -> e.getId().length()));
+ *   for (int g = 0; g < groups.size(); g++) {
+ *       System.out.println(groups.key(g) + " " + groups.count(g) + " " + groups.average(g));
+ *   }
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: PrimitiveCollectors.java, v0.1 2026-10-18 21:40  gongzuo.zy Exp $
+ */
+public class PrimitiveCollectors {
+
+    private PrimitiveCollectors() {
+    }
+
+    // 只计数，等价于 groupingBy(key, counting())
+    public static <T> Collector<T, IntGroups, IntGroups> groupingByInt(ToIntFunction<? super T> key) {
+        return Collector.of(() -> new IntGroups(false), (g, t) -> g.add(key.applyAsInt(t), 0), IntGroups::merge);
+    }
+
+    // 计数并统计value的sum、min、max，等价于 groupingBy(key, summarizingLong(value))
+    public static <T> Collector<T, IntGroups, IntGroups> groupingByInt(ToIntFunction<? super T> key,
+                                                                      ToLongFunction<? super T> value) {
+        return Collector.of(() -> new IntGroups(true), (g, t) -> g.add(key.applyAsInt(t), value.applyAsLong(t)),
+                IntGroups::merge);
+    }
+
+    public static <T> Collector<T, LongGroups, LongGroups> groupingByLong(ToLongFunction<? super T> key) {
+        return Collector.of(() -> new LongGroups(false), (g, t) -> g.add(key.applyAsLong(t), 0), LongGroups::merge);
+    }
+
+    public static <T> Collector<T, LongGroups, LongGroups> groupingByLong(ToLongFunction<? super T> key,
+                                                                         ToLongFunction<? super T> value) {
+        return Collector.of(() -> new LongGroups(true), (g, t) -> g.add(key.applyAsLong(t), value.applyAsLong(t)),
+                LongGroups::merge);
+    }
+
+    // String的key按出现顺序编成字典，每个不同的String只保存一次
+    public static <T> Collector<T, StringGroups, StringGroups> groupingByString(Function<? super T, String> key) {
+        return Collector.of(() -> new StringGroups(false), (g, t) -> g.add(key.apply(t), 0), StringGroups::merge);
+    }
+
+    public static <T> Collector<T, StringGroups, StringGroups> groupingByString(Function<? super T, String> key,
+                                                                               ToLongFunction<? super T> value) {
+        return Collector.of(() -> new StringGroups(true), (g, t) -> g.add(key.apply(t), value.applyAsLong(t)),
+                StringGroups::merge);
+    }
+
+    // 和HashMap一样打散低位，避免连续的key挤在一起
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 分组结果的公共部分：组号从0到size()-1，各项统计按组号存放。
+     * 只计数的收集器不维护sum、min、max，对应方法返回0
+     */
+    public abstract static class Groups {
+
+        private final boolean aggregate;
+
+        // 组号+1，0表示空槽
+        private int[] table = new int[16];
+
+        private long[] counts = new long[8];
+
+        private long[] sums;
+
+        private long[] mins;
+
+        private long[] maxs;
+
+        int size;
+
+        Groups(boolean aggregate) {
+            this.aggregate = aggregate;
+            if (aggregate) {
+                sums = new long[8];
+                mins = new long[8];
+                maxs = new long[8];
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long count(int group) {
+            return counts[group];
+        }
+
+        public long sum(int group) {
+            return aggregate ? sums[group] : 0;
+        }
+
+        public long min(int group) {
+            return aggregate ? mins[group] : 0;
+        }
+
+        public long max(int group) {
+            return aggregate ? maxs[group] : 0;
+        }
+
+        public double average(int group) {
+            return counts[group] == 0 ? 0 : (double) sum(group) / counts[group];
+        }
+
+        // 第group组的key的哈希值，扩容时重新分布用
+        abstract int hash(int group);
+
+        abstract void resizeKeys(int capacity);
+
+        // 由子类按key定位槽位，返回-1表示遇到空槽
+        final int groupAt(int slot) {
+            return table[slot] - 1;
+        }
+
+        final int mask() {
+            return table.length - 1;
+        }
+
+        // 在空槽slot上登记一个新组，调用方已经把key写进了组号为size的位置
+        final int newGroup(int slot) {
+            int group = size++;
+            table[slot] = group + 1;
+            if (aggregate) {
+                mins[group] = Long.MAX_VALUE;
+                maxs[group] = Long.MIN_VALUE;
+            }
+            // 装载因子不超过0.5，线性探测的链足够短
+            if (size * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+            return group;
+        }
+
+        // 保证组号size可以写入
+        final void ensureCapacity() {
+            if (size == counts.length) {
+                int capacity = size * 2;
+                counts = Arrays.copyOf(counts, capacity);
+                if (aggregate) {
+                    sums = Arrays.copyOf(sums, capacity);
+                    mins = Arrays.copyOf(mins, capacity);
+                    maxs = Arrays.copyOf(maxs, capacity);
+                }
+                resizeKeys(capacity);
+            }
+        }
+
+        final void accumulate(int group, long value) {
+            counts[group]++;
+            if (aggregate) {
+                sums[group] += value;
+                if (value < mins[group]) {
+                    mins[group] = value;
+                }
+                if (value > maxs[group]) {
+                    maxs[group] = value;
+                }
+            }
+        }
+
+        // 把other的第from组合并进本表的第group组
+        final void combine(int group, Groups other, int from) {
+            counts[group] += other.counts[from];
+            if (aggregate) {
+                sums[group] += other.sums[from];
+                mins[group] = Math.min(mins[group], other.mins[from]);
+                maxs[group] = Math.max(maxs[group], other.maxs[from]);
+            }
+        }
+
+        private void rehash(int capacity) {
+            int[] rehashed = new int[capacity];
+            int mask = capacity - 1;
+            for (int group = 0; group < size; group++) {
+                int slot = hash(group) & mask;
+                while (rehashed[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                rehashed[slot] = group + 1;
+            }
+            table = rehashed;
+        }
+    }
+
+    public static final class IntGroups extends Groups {
+
+        private int[] keys = new int[8];
+
+        IntGroups(boolean aggregate) {
+            super(aggregate);
+        }
+
+        public int key(int group) {
+            return keys[group];
+        }
+
+        // 返回-1表示没有这个key
+        public int indexOf(int key) {
+            int mask = mask();
+            for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                int group = groupAt(slot);
+                if (group < 0 || keys[group] == key) {
+                    return group;
+                }
+            }
+        }
+
+        public Map<Integer, Long> counts() {
+            Map<Integer, Long> result = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int group = 0; group < size; group++) {
+                result.put(keys[group], count(group));
+            }
+            return result;
+        }
+
+        void add(int key, long value) {
+            accumulate(findOrAdd(key), value);
+        }
+
+        IntGroups merge(IntGroups other) {
+            for (int from = 0; from < other.size; from++) {
+                combine(findOrAdd(other.keys[from]), other, from);
+            }
+            return this;
+        }
+
+        private int findOrAdd(int key) {
+            int mask = mask();
+            int slot = mix(key) & mask;
+            int group;
+            while ((group = groupAt(slot)) >= 0) {
+                if (keys[group] == key) {
+                    return group;
+                }
+                slot = (slot + 1) & mask;
+            }
+            ensureCapacity();
+            keys[size] = key;
+            return newGroup(slot);
+        }
+
+        @Override
+        int hash(int group) {
+            return mix(keys[group]);
+        }
+
+        @Override
+        void resizeKeys(int capacity) {
+            keys = Arrays.copyOf(keys, capacity);
+        }
+    }
+
+    public static final class LongGroups extends Groups {
+
+        private long[] keys = new long[8];
+
+        LongGroups(boolean aggregate) {
+            super(aggregate);
+        }
+
+        public long key(int group) {
+            return keys[group];
+        }
+
+        public int indexOf(long key) {
+            int mask = mask();
+            for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+                int group = groupAt(slot);
+                if (group < 0 || keys[group] == key) {
+                    return group;
+                }
+            }
+        }
+
+        public Map<Long, Long> counts() {
+            Map<Long, Long> result = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int group = 0; group < size; group++) {
+                result.put(keys[group], count(group));
+            }
+            return result;
+        }
+
+        void add(long key, long value) {
+            accumulate(findOrAdd(key), value);
+        }
+
+        LongGroups merge(LongGroups other) {
+            for (int from = 0; from < other.size; from++) {
+                combine(findOrAdd(other.keys[from]), other, from);
+            }
+            return this;
+        }
+
+        private int findOrAdd(long key) {
+            int mask = mask();
+            int slot = hash(key) & mask;
+            int group;
+            while ((group = groupAt(slot)) >= 0) {
+                if (keys[group] == key) {
+                    return group;
+                }
+                slot = (slot + 1) & mask;
+            }
+            ensureCapacity();
+            keys[size] = key;
+            return newGroup(slot);
+        }
+
+        private static int hash(long key) {
+            return mix((int) (key ^ (key >>> 32)));
+        }
+
+        @Override
+        int hash(int group) {
+            return hash(keys[group]);
+        }
+
+        @Override
+        void resizeKeys(int capacity) {
+            keys = Arrays.copyOf(keys, capacity);
+        }
+    }
+
+    public static final class StringGroups extends Groups {
+
+        // 字典：组号就是编码
+        private String[] keys = new String[8];
+
+        // 缓存哈希值，探测时先比较哈希再equals
+        private int[] hashes = new int[8];
+
+        StringGroups(boolean aggregate) {
+            super(aggregate);
+        }
+
+        public String key(int group) {
+            return keys[group];
+        }
+
+        public int indexOf(String key) {
+            int hash = mix(key.hashCode());
+            int mask = mask();
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int group = groupAt(slot);
+                if (group < 0 || (hashes[group] == hash && keys[group].equals(key))) {
+                    return group;
+                }
+            }
+        }
+
+        public Map<String, Long> counts() {
+            Map<String, Long> result = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int group = 0; group < size; group++) {
+                result.put(keys[group], count(group));
+            }
+            return result;
+        }
+
+        void add(String key, long value) {
+            accumulate(findOrAdd(key), value);
+        }
+
+        StringGroups merge(StringGroups other) {
+            for (int from = 0; from < other.size; from++) {
+                combine(findOrAdd(other.keys[from]), other, from);
+            }
+            return this;
+        }
+
+        private int findOrAdd(String key) {
+            // 与groupingBy一样不允许null的key
+            int hash = mix(Objects.requireNonNull(key, "element cannot be mapped to a null key").hashCode());
+            int mask = mask();
+            int slot = hash & mask;
+            int group;
+            while ((group = groupAt(slot)) >= 0) {
+                if (hashes[group] == hash && keys[group].equals(key)) {
+                    return group;
+                }
+                slot = (slot + 1) & mask;
+            }
+            ensureCapacity();
+            keys[size] = key;
+            hashes[size] = hash;
+            return newGroup(slot);
+        }
+
+        @Override
+        int hash(int group) {
+            return hashes[group];
+        }
+
+        @Override
+        void resizeKeys(int capacity) {
+            keys = Arrays.copyOf(keys, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+    }
+}
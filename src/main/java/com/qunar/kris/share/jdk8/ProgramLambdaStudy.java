@@ -5,11 +5,15 @@
 package com.qunar.kris.share.jdk8;
 
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * @author gongzuo.zy
@@ -22,17 +26,32 @@ public class ProgramLambdaStudy {
         Function<Integer, Integer> sqrt = e -> e*e;
         time2.compose(sqrt).apply(4);
         time2.andThen(sqrt).apply(4);
+        // 基本类型、融合成一个对象的写法，不装箱
+        IntUnaryOperator fused = FusedOperators.intChain().then(e -> e * e).multiply(2).build();
+        fused.applyAsInt(4);
     }
 
+    // 共享的有界线程池，队列满了由调用线程自己执行
+    private static final AsyncPipeline PIPELINE = new AsyncPipeline("do-in-order",
+            Runtime.getRuntime().availableProcessors(), 1024, AsyncPipeline.Overflow.CALLER_RUNS);
+
     // 使用handler用来处理内部异常是个好办法
-    public static <T> void doInOrderAsync(Supplier<T> first, Consumer<T> second, Consumer<Throwable> handler) {
-        Thread t = new Thread() { public void run() {
-            try {
-                T result = first.get(); second.accept(result);
-            } catch (Throwable t) { handler.accept(t);
-            } }
-        };
-        t.start();
+    // 以前每次调用都new Thread，创建线程的开销比任务本身还大，现在投递到共享线程池
+    public static <T> CompletableFuture<Void> doInOrderAsync(Supplier<T> first, Consumer<T> second, Consumer<Throwable> handler) {
+        return PIPELINE.doInOrderAsync(first, second, handler);
+    }
+
+    // 流里的每个元素都交给second时不要先collect成List，按second的速度从流里取，最多缓冲defaultBufferSize个；
+    // first和second都在线程池里执行，调用线程立即返回
+    public static <T> CompletableFuture<Void> doForEachAsync(Supplier<Stream<T>> first, Consumer<T> second, Consumer<Throwable> handler) {
+        return StreamPublisher.<T>from(first).subscribeOn(PIPELINE.executor())
+                .async(PIPELINE.executor(), Flow.defaultBufferSize()).forEach(second)
+                .handle((ignored, ex) -> {
+                    if (ex != null) {
+                        handler.accept(ex);
+                    }
+                    return null;
+                });
     }
 
 
@@ -41,6 +60,11 @@ public class ProgramLambdaStudy {
         return a -> a.replace("a", "b");
     }
 
+    // 结果只取决于参数时，可以把函数缓存起来，重复的参数不再计算；并发访问同一个参数也只算一次
+    public static Function<String, String> returnMemoizedFunction() {
+        return Memoizer.builder().maximumSize(1024).expireAfterWrite(10, TimeUnit.MINUTES).function(returnFunction());
+    }
+
     // 采用这种方式可以延迟执行 supplier内容，提高性能
     public static void info(Logger logger, Supplier<String> message) {
         if (logger.isLoggable(Level.INFO)) {
@@ -48,6 +72,13 @@ public class ProgramLambdaStudy {
         }
     }
 
+    private static final AsyncLogger ASYNC_LOGGER = new AsyncLogger(1 << 14, AsyncLogger.Overflow.DROP);
+
+    // 更进一步，supplier和logger.info都放到后台线程批量执行，调用线程只负责入队
+    public static void infoAsync(Logger logger, Supplier<String> message) {
+        ASYNC_LOGGER.info(logger, message);
+    }
+
     public static void main(String[] args) {
 
         // 以下是常见的函数接口
@@ -0,0 +1,140 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * nashorn脚本执行服务：
+ * 1. 引擎池，默认与cpu核数相同，同一时刻一个引擎只被一个线程使用；
+ * 2. 每个引擎带一个按脚本源码缓存CompiledScript的LRU，避免每次eval重新解析；
+ * 3. 每次调用的变量只在本次调用期间可见，脚本可以安全地在线程之间复用。
+ * CompiledScript是和编译它的引擎绑定的，所以缓存跟着引擎走
+ *
+ * @author gongzuo.zy
+ * @version $Id: ScriptService.java, v0.1 2026-10-18 14:10  gongzuo.zy Exp $
+ */
+public class ScriptService {
+
+    private final BlockingQueue<PooledEngine> engines;
+
+    public ScriptService() {
+        this(Runtime.getRuntime().availableProcessors(), 256);
+    }
+
+    public ScriptService(int poolSize, int cacheSize) {
+        if (poolSize < 1 || cacheSize < 1) {
+            throw new IllegalArgumentException("poolSize and cacheSize must be positive");
+        }
+        ScriptEngineManager manager = new ScriptEngineManager();
+        engines = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            ScriptEngine engine = manager.getEngineByName("nashorn");
+            if (!(engine instanceof Compilable)) {
+                throw new IllegalStateException("nashorn engine is not available");
+            }
+            engines.add(new PooledEngine(engine, cacheSize));
+        }
+    }
+
+    public Object eval(String source) throws ScriptException {
+        return eval(source, Collections.emptyMap());
+    }
+
+    /*
+     * variables只在本次调用期间放进引擎的全局Bindings，调用结束后清掉全局Bindings里的所有变量，
+     * 包括脚本自己赋值的全局变量，下一次调用看不到这一次留下的东西。
+     * 不是每次都createBindings/eval(bindings)，因为nashorn新建一个global要几毫秒，比解析还慢；
+     * 只有脚本在顶层用var/function声明了变量（不能删除）时，才给这个引擎换一个新的global。
+     * 覆盖内置对象（比如给Math赋值）不在清理范围内
+     */
+    public Object eval(String source, Map<String, ?> variables) throws ScriptException {
+        PooledEngine engine = acquire();
+        try {
+            engine.global.putAll(variables);
+            return engine.compile(source).eval();
+        } finally {
+            engine.reset();
+            engines.add(engine);
+        }
+    }
+
+    private PooledEngine acquire() throws ScriptException {
+        try {
+            return engines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScriptException("interrupted while waiting for a script engine");
+        }
+    }
+
+    private static class PooledEngine {
+
+        private final ScriptEngine engine;
+
+        private final Map<String, CompiledScript> cache;
+
+        private Bindings global;
+
+        PooledEngine(ScriptEngine engine, int cacheSize) {
+            this.engine = engine;
+            this.global = engine.getBindings(ScriptContext.ENGINE_SCOPE);
+            this.cache = new LruCache(cacheSize);
+        }
+
+        // 删除所有全局变量，删不掉的（顶层var/function）说明global已经脏了，整个换掉
+        void reset() {
+            if (global.isEmpty()) {
+                return;
+            }
+            for (String name : new ArrayList<>(global.keySet())) {
+                global.remove(name);
+            }
+            if (!global.isEmpty()) {
+                global = engine.createBindings();
+                engine.setBindings(global, ScriptContext.ENGINE_SCOPE);
+            }
+        }
+
+        CompiledScript compile(String source) throws ScriptException {
+            CompiledScript script = cache.get(source);
+            if (script == null) {
+                script = ((Compilable) engine).compile(source);
+                cache.put(source, script);
+            }
+            return script;
+        }
+    }
+
+    // accessOrder=true 即LRU，只有持有引擎的线程会访问，不需要加锁
+    private static final class LruCache extends LinkedHashMap<String, CompiledScript> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
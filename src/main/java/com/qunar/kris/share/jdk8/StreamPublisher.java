@@ -0,0 +1,750 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 把Stream/Spliterator变成有背压的Flow.Publisher：订阅者request多少，才从spliterator里tryAdvance多少，
+ * 不需要先把整个流collect成List，慢的消费者面对上亿个元素时内存也是固定的。
+ *
+ * <pre>
+ *   StreamPublisher.from(() -&gt; rows.stream())
+ *           .filter(Row::isValid)
+ *           .map(Row::toEvent)
+ *           .batch(100)
+ *           .async(executor, 16)
+ *           .forEach(events -&gt; sink.write(events));
+ * </pre>
+ *
+ * 各级的背压：
+ * <ul>
+ *     <li>map：一个换一个，请求原样传给上游</li>
+ *     <li>filter：丢掉的元素向上游补请求1个</li>
+ *     <li>batch(size)：下游请求n批，向上游请求n*size个</li>
+ *     <li>async(executor, bufferSize)：异步边界，下游在executor中收到信号；缓冲区有界，
+ *     先向上游请求bufferSize个，下游每取走3/4再补同样多，上游最多领先bufferSize个</li>
+ *     <li>subscribeOn(executor)：不改变请求，只是在executor里订阅上游</li>
+ * </ul>
+ * 没有async时所有信号都在调用request的线程里发出；request在onNext里重入时只累加请求数，不会递归。
+ * subscribe本身会同步创建流并发出第一批元素，调用线程不能阻塞时在前面加subscribeOn
+ *
+ * @author gongzuo.zy
+ * @version $Id: StreamPublisher.java, v0.1 2026-10-19 08:30  gongzuo.zy Exp $
+ */
+public final class StreamPublisher<T> implements Flow.Publisher<T> {
+
+    private final Flow.Publisher<T> source;
+
+    private StreamPublisher(Flow.Publisher<T> source) {
+        this.source = source;
+    }
+
+    /**
+     * 每个订阅者调用一次supplier得到自己的流，结束或取消时关闭流（触发onClose，比如Files.lines的文件）
+     */
+    public static <T> StreamPublisher<T> from(Supplier<? extends Stream<? extends T>> streams) {
+        Objects.requireNonNull(streams);
+        return new StreamPublisher<T>(subscriber -> {
+            Stream<? extends T> stream;
+            try {
+                stream = streams.get();
+            } catch (Throwable e) {
+                subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+                subscriber.onError(e);
+                return;
+            }
+            subscriber.onSubscribe(new SpliteratorSubscription<T>(subscriber, stream.spliterator(), stream::close));
+        });
+    }
+
+    /**
+     * spliterator只能遍历一次，所以只能有一个订阅者，之后的订阅者收到IllegalStateException
+     */
+    public static <T> StreamPublisher<T> from(Spliterator<? extends T> spliterator) {
+        Objects.requireNonNull(spliterator);
+        AtomicBoolean subscribed = new AtomicBoolean();
+        return new StreamPublisher<T>(subscriber -> {
+            if (!subscribed.compareAndSet(false, true)) {
+                subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+                subscriber.onError(new IllegalStateException("a spliterator publisher allows only one subscriber"));
+                return;
+            }
+            subscriber.onSubscribe(new SpliteratorSubscription<T>(subscriber, spliterator, null));
+        });
+    }
+
+    /**
+     * 给任意Publisher加上map/filter/batch/async这些操作
+     */
+    public static <T> StreamPublisher<T> wrap(Flow.Publisher<T> publisher) {
+        Objects.requireNonNull(publisher);
+        return publisher instanceof StreamPublisher ? (StreamPublisher<T>) publisher : new StreamPublisher<>(publisher);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        source.subscribe(Objects.requireNonNull(subscriber));
+    }
+
+    public <R> StreamPublisher<R> map(Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new StreamPublisher<R>(subscriber -> subscribe(new MapSubscriber<T, R>(subscriber, mapper)));
+    }
+
+    public StreamPublisher<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        return new StreamPublisher<T>(subscriber -> subscribe(new FilterSubscriber<T>(subscriber, predicate)));
+    }
+
+    /*
+     * 每size个元素一批，最后一批可能不满
+     */
+    public StreamPublisher<List<T>> batch(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        return new StreamPublisher<List<T>>(subscriber -> subscribe(new BatchSubscriber<T>(subscriber, size)));
+    }
+
+    /**
+     * 异步边界：下游的信号在executor中发出，上游最多领先bufferSize个元素
+     */
+    public StreamPublisher<T> async(Executor executor, int bufferSize) {
+        Objects.requireNonNull(executor);
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        return new StreamPublisher<T>(subscriber -> subscribe(new AsyncSubscriber<T>(subscriber, executor, bufferSize)));
+    }
+
+    /**
+     * 在executor中订阅上游：from的supplier创建流、onSubscribe里的第一次request都不在调用subscribe的线程里，
+     * 之后的元素在调用request的线程里发出，后面接async时就全在executor中。executor拒绝时以它的异常调用onError
+     */
+    public StreamPublisher<T> subscribeOn(Executor executor) {
+        Objects.requireNonNull(executor);
+        return new StreamPublisher<T>(subscriber -> {
+            try {
+                executor.execute(() -> subscribe(subscriber));
+            } catch (Throwable e) {
+                subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+                subscriber.onError(e);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> forEach(Consumer<? super T> action) {
+        return forEach(action, Flow.defaultBufferSize());
+    }
+
+    /**
+     * 每次向上游请求prefetch个，处理完3/4再补。action在发出onNext的线程中执行，抛出异常时取消订阅，
+     * 返回的future以这个异常失败；取消future也会取消订阅
+     */
+    public CompletableFuture<Void> forEach(Consumer<? super T> action, int prefetch) {
+        Objects.requireNonNull(action);
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be positive: " + prefetch);
+        }
+        ForEachSubscriber<T> subscriber = new ForEachSubscriber<>(action, prefetch);
+        subscribe(subscriber);
+        return subscriber.future;
+    }
+
+    // ---------- 请求数 ----------
+
+    static long addCap(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    static long multiplyCap(long a, long b) {
+        long product = a * b;
+        return (a | b) >>> 31 != 0 && product / b != a ? Long.MAX_VALUE : product;
+    }
+
+    /*
+     * 累加请求数，Long.MAX_VALUE表示不限，返回累加之前的值
+     */
+    static long addRequested(AtomicLong requested, long n) {
+        for (; ; ) {
+            long current = requested.get();
+            if (current == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            if (requested.compareAndSet(current, addCap(current, n))) {
+                return current;
+            }
+        }
+    }
+
+    static void produced(AtomicLong requested, long n) {
+        if (n != 0 && requested.get() != Long.MAX_VALUE) {
+            requested.addAndGet(-n);
+        }
+    }
+
+    // ---------- 源头 ----------
+
+    private enum CancelledSubscription implements Flow.Subscription {
+        INSTANCE;
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+
+    /**
+     * 在调用request的线程里tryAdvance；wip保证同时只有一个线程在发信号，重入的request只增加请求数
+     */
+    private static final class SpliteratorSubscription<T> implements Flow.Subscription, Consumer<T> {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final Spliterator<? extends T> spliterator;
+
+        private final Runnable onClose;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        // request(n)的n不合法，在cancelled之前写入
+        private volatile Throwable error;
+
+        // 只在持有wip的线程里读写
+        private boolean done;
+
+        SpliteratorSubscription(Flow.Subscriber<? super T> subscriber, Spliterator<? extends T> spliterator, Runnable onClose) {
+            this.subscriber = subscriber;
+            this.spliterator = spliterator;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("request must be positive: " + n);
+                cancelled = true;
+                drain();
+                return;
+            }
+            addRequested(requested, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        @Override
+        public void accept(T item) {
+            subscriber.onNext(item);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (; ; ) {
+                if (done) {
+                    return;
+                }
+                if (cancelled) {
+                    terminate(error);
+                    return;
+                }
+                long r = requested.get();
+                long emitted = 0;
+                while (emitted != r && !cancelled) {
+                    boolean hasNext;
+                    try {
+                        hasNext = spliterator.tryAdvance(this);
+                    } catch (Throwable e) {
+                        cancelled = true;
+                        terminate(e);
+                        return;
+                    }
+                    if (!hasNext) {
+                        done = true;
+                        close();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    emitted++;
+                }
+                produced(requested, emitted);
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void terminate(Throwable error) {
+            done = true;
+            close();
+            if (error != null) {
+                subscriber.onError(error);
+            }
+        }
+
+        private void close() {
+            if (onClose != null) {
+                onClose.run();
+            }
+        }
+    }
+
+    // ---------- 中间操作 ----------
+
+    /**
+     * 一对一的中间操作，请求和取消原样转给上游
+     */
+    private abstract static class Stage<T, R> implements Flow.Subscriber<T>, Flow.Subscription {
+
+        final Flow.Subscriber<? super R> downstream;
+
+        Flow.Subscription upstream;
+
+        boolean done;
+
+        Stage(Flow.Subscriber<? super R> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+
+        // 自己的函数抛出异常：取消上游，把异常交给下游
+        void fail(Throwable e) {
+            upstream.cancel();
+            onError(e);
+        }
+    }
+
+    private static final class MapSubscriber<T, R> extends Stage<T, R> {
+
+        private final Function<? super T, ? extends R> mapper;
+
+        MapSubscriber(Flow.Subscriber<? super R> downstream, Function<? super T, ? extends R> mapper) {
+            super(downstream);
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            R mapped;
+            try {
+                mapped = mapper.apply(item);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            downstream.onNext(mapped);
+        }
+    }
+
+    private static final class FilterSubscriber<T> extends Stage<T, T> {
+
+        private final Predicate<? super T> predicate;
+
+        FilterSubscriber(Flow.Subscriber<? super T> downstream, Predicate<? super T> predicate) {
+            super(downstream);
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            boolean matched;
+            try {
+                matched = predicate.test(item);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            if (matched) {
+                downstream.onNext(item);
+            } else {
+                upstream.request(1);
+            }
+        }
+    }
+
+    private static final class BatchSubscriber<T> extends Stage<T, List<T>> {
+
+        private final int size;
+
+        private List<T> buffer;
+
+        BatchSubscriber(Flow.Subscriber<? super List<T>> downstream, int size) {
+            super(downstream);
+            this.size = size;
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            if (buffer == null) {
+                buffer = new ArrayList<>(size);
+            }
+            buffer.add(item);
+            if (buffer.size() == size) {
+                List<T> batch = buffer;
+                buffer = null;
+                downstream.onNext(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            buffer = null;
+            super.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done && buffer != null) {
+                List<T> batch = buffer;
+                buffer = null;
+                downstream.onNext(batch);
+            }
+            super.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.request(n);
+                return;
+            }
+            upstream.request(multiplyCap(n, size));
+        }
+    }
+
+    /**
+     * 上游往环形缓冲区里放，executor里的drain往下游发；上游不会超过请求数，所以缓冲区不会满
+     */
+    private static final class AsyncSubscriber<T> implements Flow.Subscriber<T>, Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> downstream;
+
+        private final Executor executor;
+
+        private final int bufferSize;
+
+        // 下游每取走limit个向上游补limit个
+        private final int limit;
+
+        private final AtomicReferenceArray<T> buffer;
+
+        private final int mask;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Flow.Subscription upstream;
+
+        // 只有上游的onNext写
+        private long producerIndex;
+
+        // 只有drain读写
+        private long consumerIndex;
+
+        private int consumed;
+
+        private volatile boolean done;
+
+        private Throwable error;
+
+        // 下游request的参数不合法，由drain丢掉缓冲区后发出onError，不等缓冲的元素
+        private volatile Throwable invalidRequest;
+
+        private volatile boolean cancelled;
+
+        AsyncSubscriber(Flow.Subscriber<? super T> downstream, Executor executor, int bufferSize) {
+            this.downstream = downstream;
+            this.executor = executor;
+            this.bufferSize = bufferSize;
+            this.limit = bufferSize - (bufferSize >> 2);
+            int capacity = Integer.highestOneBit(bufferSize - 1 | 1) << 1;
+            this.buffer = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            subscription.request(bufferSize);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            int index = (int) producerIndex & mask;
+            if (buffer.get(index) != null) {
+                upstream.cancel();
+                onError(new IllegalStateException("upstream emitted more items than requested"));
+                return;
+            }
+            buffer.lazySet(index, item);
+            producerIndex++;
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (done) {
+                return;
+            }
+            error = throwable;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (invalidRequest == null) {
+                    invalidRequest = new IllegalArgumentException("request must be positive: " + n);
+                    upstream.cancel();
+                    schedule();
+                }
+                return;
+            }
+            addRequested(requested, n);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (Throwable e) {
+                    cancelled = true;
+                    upstream.cancel();
+                    clear();
+                    downstream.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (; ; ) {
+                long r = requested.get();
+                long emitted = 0;
+                while (emitted != r) {
+                    if (cancelled || invalidRequest != null) {
+                        terminateIfInvalid();
+                        return;
+                    }
+                    boolean terminated = done;
+                    int index = (int) consumerIndex & mask;
+                    T item = buffer.get(index);
+                    if (item == null) {
+                        if (terminated) {
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+                    buffer.lazySet(index, null);
+                    consumerIndex++;
+                    downstream.onNext(item);
+                    emitted++;
+                    if (++consumed == limit) {
+                        consumed = 0;
+                        upstream.request(limit);
+                    }
+                }
+                if (cancelled || invalidRequest != null) {
+                    terminateIfInvalid();
+                    return;
+                }
+                if (done && buffer.get((int) consumerIndex & mask) == null) {
+                    terminate();
+                    return;
+                }
+                produced(requested, emitted);
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        // 终止后wip不再归零，之后的信号都不会再调度
+        private void terminate() {
+            cancelled = true;
+            if (error != null) {
+                downstream.onError(error);
+            } else {
+                downstream.onComplete();
+            }
+        }
+
+        // 已经取消或者终止的只清空缓冲区
+        private void terminateIfInvalid() {
+            clear();
+            if (!cancelled) {
+                cancelled = true;
+                downstream.onError(invalidRequest);
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i < buffer.length(); i++) {
+                buffer.lazySet(i, null);
+            }
+        }
+    }
+
+    // ---------- 终结操作 ----------
+
+    private static final class ForEachSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final Consumer<? super T> action;
+
+        private final int prefetch;
+
+        private final int limit;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Flow.Subscription subscription;
+
+        private int consumed;
+
+        ForEachSubscriber(Consumer<? super T> action, int prefetch) {
+            this.action = action;
+            this.prefetch = prefetch;
+            this.limit = Math.max(1, prefetch - (prefetch >> 2));
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            future.whenComplete((v, e) -> {
+                if (future.isCancelled()) {
+                    subscription.cancel();
+                }
+            });
+            subscription.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                action.accept(item);
+            } catch (Throwable e) {
+                subscription.cancel();
+                future.completeExceptionally(e);
+                return;
+            }
+            if (++consumed == limit) {
+                consumed = 0;
+                subscription.request(limit);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            future.complete(null);
+        }
+    }
+}
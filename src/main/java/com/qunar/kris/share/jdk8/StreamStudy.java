@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -20,7 +22,7 @@ import static java.util.stream.Collectors.*;
  */
 public class StreamStudy {
 
-    private static class Person {
+    static class Person {
         String id;
         String name;
 
@@ -129,6 +131,9 @@ public class StreamStudy {
                 .build();
 
         Stream<Person> p = Stream.generate(Person::new);
+
+        // generate是无限流，limit之后几乎不能并行；知道个数时按下标生成，可以像IntStream.range一样切分
+        Stream<Person> parallelPersons = ParallelSources.generate(1000, Person::new).parallel();
     }
 
     // 变换，重点
@@ -146,6 +151,9 @@ public class StreamStudy {
         // 排序
         list.stream().sorted().forEach(System.out::println);
 
+        // 只要前几个时不必全部排序，topK只保留k个元素
+        list.stream().collect(BoundedCollectors.topK(1, Comparator.naturalOrder())).forEach(System.out::println);
+
         // 对应map操作 flatMap，将多stream进行合并
         list.stream().map(String::length).forEach(System.out::println);
         list.stream().map(String::toUpperCase).sorted().forEach(System.out::println);
@@ -156,6 +164,9 @@ public class StreamStudy {
         // 流去重
         Stream.of("merrily", "merrily", "merrily", "gently").distinct();
 
+        // 只关心去重后的个数时，用HyperLogLog估算，内存固定
+        Stream.of("merrily", "merrily", "merrily", "gently").collect(BoundedCollectors.approxDistinctCount());
+
         // 跳过是个记录
         list.stream().skip(10);
 
@@ -181,6 +192,17 @@ public class StreamStudy {
         // 提供多线程并行的流
         list.parallelStream();
 
+        // parallelStream默认跑在commonPool里，重的任务放到自己的pool里，不影响其他并行流和supplyAsync
+        try (ForkJoinPoolRegistry registry = new ForkJoinPoolRegistry()) {
+            registry.register("report", 2);
+            long count = registry.run("report", () -> list.parallelStream().filter(p -> p.contains("b")).count());
+            System.out.println(registry.stats("report"));
+        }
+
+        // 流水线变慢时，打开统计（-Djdk8.stream.instrument=true）看每一步的元素个数、耗时和分配
+        InstrumentedStreams.of("trasformer", list.stream()).map(String::toUpperCase).sorted().forEach(System.out::println);
+        InstrumentedStreams.snapshot().forEach(System.out::println);
+
     }
 
     // 元类型
@@ -223,9 +245,19 @@ public class StreamStudy {
         // 分组
         Map<String, Set<Locale>> countryToLocaleSet = locales.stream().collect(groupingBy(Locale::getCountry, toSet()));
 
+        // 只需要每组的个数/统计值时，用基本类型的分组收集器，不会为每个组创建集合
+        PrimitiveCollectors.StringGroups countryCounts = locales.stream().collect(PrimitiveCollectors.groupingByString(Locale::getCountry));
+
         // 分区
         Map<Boolean, List<Person>> partitioned = peoples.stream().collect(partitioningBy(e -> e.getId().length() > 150));
 
+        // 无界的事件流：同样的收集器按时间窗口增量聚合，每个窗口结束时输出一次；这里是10秒的窗口每秒滑动一次
+        WindowedAggregator<Instant, ?, Long> perTenSeconds = WindowedAggregator.sliding(
+                Duration.ofSeconds(10), Duration.ofSeconds(1), Function.identity(),
+                Collectors.counting(), window -> System.out.println(window.getEnd() + " " + window.getResult()));
+        Stream.iterate(Instant.EPOCH, t -> t.plusMillis(100)).limit(300).forEach(perTenSeconds);
+        perTenSeconds.flush();
+
     }
 
     public static void main(String[] args) {
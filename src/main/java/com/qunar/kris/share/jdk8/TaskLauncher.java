@@ -0,0 +1,345 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 替代 new Thread(task).start() 的任务启动器。
+ * 运行在JDK21及以上时，每个任务一个虚拟线程；更早的JDK上退回到共享的平台线程池。
+ * 代码按Java8编译，虚拟线程的工厂方法在运行时通过MethodHandle查找，不需要multi-release jar。
+ * 虚拟线程和池里的线程都是守护线程，所以shared在JVM退出时（shutdown hook里）等已经提交的任务执行完，
+ * 最多等SHUTDOWN_TIMEOUT_SECONDS秒：和new Thread启动的非守护线程一样，main返回前launch的任务不会丢
+ *
+ * <pre>
+ *   TaskLauncher.shared().launch(this::manSayGreet);
+ *
+ *   // 结构化：一组任务一起等待，任何一个失败就取消其余的，离开try时不会留下还在运行的任务
+ *   try (TaskLauncher.Scope scope = TaskLauncher.shared().scope()) {
+ *       Future&lt;String&gt; user = scope.fork(() -> loadUser(id));
+ *       Future&lt;Integer&gt; order = scope.fork(() -> countOrders(id));
+ *       scope.join();
+ *       return user.get() + order.get();
+ *   }
+ * </pre>
+ *
+ * @author gongzuo.zy
+ * @version $Id: TaskLauncher.java, v0.1 2026-10-19 02:00  gongzuo.zy Exp $
+ */
+public class TaskLauncher implements AutoCloseable {
+
+    public enum Mode {
+        // 每个任务一个虚拟线程（JDK21+）
+        VIRTUAL,
+        // 固定大小的平台线程池
+        POOL
+    }
+
+    public static final int SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final TaskLauncher SHARED = new TaskLauncher(Runtime.getRuntime().availableProcessors() * 2);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SHARED::awaitTermination, "task-launcher-shutdown"));
+    }
+
+    private final Mode mode;
+
+    private final ExecutorService executor;
+
+    public static TaskLauncher shared() {
+        return SHARED;
+    }
+
+    /**
+     * 有虚拟线程时使用虚拟线程，否则使用poolThreads个平台线程
+     */
+    public TaskLauncher(int poolThreads) {
+        this(virtualThreadsAvailable() ? Mode.VIRTUAL : Mode.POOL, poolThreads);
+    }
+
+    public TaskLauncher(Mode mode, int poolThreads) {
+        if (poolThreads < 1) {
+            throw new IllegalArgumentException("poolThreads must be positive: " + poolThreads);
+        }
+        if (mode == Mode.VIRTUAL) {
+            executor = newVirtualThreadPerTaskExecutor();
+            if (executor == null) {
+                throw new UnsupportedOperationException("virtual threads require JDK 21+");
+            }
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolThreads, poolThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), daemonFactory());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        this.mode = mode;
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return VirtualThreads.FACTORY != null;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /*
+     * 发出去就不管的任务；和new Thread一样，没有处理的异常交给线程的UncaughtExceptionHandler
+     */
+    public CompletableFuture<Void> launch(Runnable task) {
+        return submit(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    public Scope scope() {
+        return new Scope();
+    }
+
+    @Override
+    public void close() {
+        if (this == SHARED) {
+            throw new IllegalStateException("the shared launcher cannot be closed");
+        }
+        executor.shutdown();
+    }
+
+    private void awaitTermination() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (VirtualThreads.FACTORY == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) VirtualThreads.FACTORY.invoke();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "task-launcher-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // JDK19/20里虚拟线程是预览特性，没有--enable-preview时调用会抛异常，这里先试一次
+    private static final class VirtualThreads {
+
+        static final MethodHandle FACTORY = lookup();
+
+        private static MethodHandle lookup() {
+            try {
+                MethodHandle factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                        "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+                ((ExecutorService) factory.invoke()).shutdown();
+                return factory;
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 一组一起等待的任务。join等待全部完成，任何一个任务失败都会取消其余任务，join抛出第一个失败的原因；
+     * close时取消还没完成的任务，并等到它们的线程都退出。
+     * 用ReentrantLock而不是synchronized，虚拟线程在等待时不会占住载体线程
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition finished = lock.newCondition();
+
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        // 已经fork、线程还没退出的任务数
+        private int pending;
+
+        private Throwable failure;
+
+        private Scope() {
+        }
+
+        public <T> Future<T> fork(Callable<T> task) {
+            FutureTask<T> future = new FutureTask<T>(task) {
+                @Override
+                protected void setException(Throwable t) {
+                    super.setException(t);
+                    // 被取消的任务抛出的中断异常不算失败
+                    if (!isCancelled()) {
+                        fail(t);
+                    }
+                }
+            };
+            lock.lock();
+            try {
+                if (failure != null) {
+                    future.cancel(false);
+                }
+                futures.add(future);
+                pending++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        future.run();
+                    } finally {
+                        exited();
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.cancel(false);
+                exited();
+                throw e;
+            }
+            return future;
+        }
+
+        public Future<?> fork(Runnable task) {
+            return fork(Executors.callable(task));
+        }
+
+        public void join() throws InterruptedException, ExecutionException {
+            lock.lock();
+            try {
+                while (pending > 0) {
+                    finished.await();
+                }
+            } catch (InterruptedException e) {
+                cancelAll();
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+            checkFailure();
+        }
+
+        public void join(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            long nanos = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (pending > 0) {
+                    if (nanos <= 0) {
+                        cancelAll();
+                        throw new TimeoutException();
+                    }
+                    nanos = finished.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                cancelAll();
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+            checkFailure();
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+            lock.lock();
+            try {
+                while (pending > 0) {
+                    finished.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void exited() {
+            lock.lock();
+            try {
+                if (--pending == 0) {
+                    finished.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void fail(Throwable t) {
+            lock.lock();
+            try {
+                if (failure == null) {
+                    failure = t;
+                }
+            } finally {
+                lock.unlock();
+            }
+            cancelAll();
+        }
+
+        private void checkFailure() throws ExecutionException {
+            lock.lock();
+            try {
+                if (failure != null) {
+                    throw new ExecutionException(failure);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // 复制一份再取消，cancel(true)会中断正在执行的任务
+        private void cancelAll() {
+            List<Future<?>> snapshot;
+            lock.lock();
+            try {
+                snapshot = new ArrayList<>(futures);
+            } finally {
+                lock.unlock();
+            }
+            for (Future<?> future : snapshot) {
+                future.cancel(true);
+            }
+        }
+    }
+}
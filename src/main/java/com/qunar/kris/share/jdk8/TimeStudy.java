@@ -4,10 +4,13 @@
  */
 package com.qunar.kris.share.jdk8;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
+import java.util.Arrays;
 
 /**
  * jdk8的时间函数
@@ -79,12 +82,25 @@ public class TimeStudy {
         System.out.println(clock);
         System.out.println(defaultClock);
 
+        // 高频打时间戳用后台线程每毫秒刷新一次的时钟，读时间不再调用系统时钟；today只在跨过0点时重新计算
+        CachedClock cachedClock = CachedClock.shared().withZone(ZoneId.systemDefault());
+        System.out.println(cachedClock.millis());
+        System.out.println(LocalDateTime.now(cachedClock));
+        System.out.println(cachedClock.today());
+
         // 处理时区
         ZoneId america = ZoneId.of("America/New_York");
         LocalDateTime localtDateAndTime = LocalDateTime.now();
         ZonedDateTime dateAndTimeInNewYork = ZonedDateTime.of(localtDateAndTime, america);
         System.out.println("Current date and time in a particular timezone : " + dateAndTimeInNewYork);
 
+        // 大批时间戳转时区不要逐个ZonedDateTime，ZoneConverter把切换点展开成数组后整批转换
+        ZoneConverter newYork = ZoneConverter.of("America/New_York");
+        long[] epochMillis = {instant.toEpochMilli(), instant.toEpochMilli() + 86400000L};
+        LocalDateTime[] newYorkTimes = new LocalDateTime[epochMillis.length];
+        newYork.toLocalDateTimes(epochMillis, newYorkTimes);
+        System.out.println(Arrays.toString(newYorkTimes));
+
         // 与MonthDay一样，可以用来处理信用卡时间
         YearMonth currentYearMonth = YearMonth.now();
         System.out.println(currentYearMonth);
@@ -109,9 +125,21 @@ public class TimeStudy {
         LocalDate holiday = LocalDate.parse(goodFriday, formatter);
         System.out.printf("Successfully parsed String %s, date is %s%n", goodFriday, holiday);
 
+        // 高频解析时不要每次ofPattern，从注册表取编译好的formatter；定长数字格式还可以直接算出epochDay
+        DateTimeFormatter cached = DateTimeFormatters.ofPattern("MM dd yyyy");
+        System.out.println(LocalDate.parse(goodFriday, cached));
+        System.out.println(LocalDate.ofEpochDay(DateTimeFormatters.parseEpochDay(goodFriday, "MM dd yyyy")));
+
         // 自定义输出格式
         System.out.println(LocalDateTime.now().format(formatter));
 
+        // 写日志时直接把时间写进ByteBuffer，不产生String；同一秒内只改写毫秒
+        AsciiDateTimeFormatter asciiFormatter = AsciiDateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+                .withZone(ZoneId.systemDefault());
+        ByteBuffer line = ByteBuffer.allocate(asciiFormatter.maxLength());
+        asciiFormatter.formatEpochMillis(System.currentTimeMillis(), line);
+        System.out.println(new String(line.array(), 0, line.position(), StandardCharsets.US_ASCII));
+
     }
 
 }
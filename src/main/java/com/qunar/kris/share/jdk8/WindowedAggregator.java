@@ -0,0 +1,363 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * 按事件时间分窗口的增量聚合，用在无界的事件流上：Collectors只能在流结束时给出一个结果，
+ * 这里每个窗口结束时就把这个窗口的结果交给sink。
+ * <p>
+ * 窗口按epoch对齐，滚动窗口[n*size, (n+1)*size)，滑动窗口每slide一个、长度size（size必须是slide的整数倍）。
+ * 时间按slide切成格子，事件只累加到当前格子（一次accumulator调用）；关闭的格子放进两个栈组成的队列：
+ * 后栈维护所有格子的合并结果，前栈每个位置存从它到前栈底的后缀合并结果，
+ * 所以窗口结果只需合并前栈栈顶和后栈，移出最老的格子只是弹栈，每个格子在两个栈之间最多搬一次，均摊O(1)。
+ * <p>
+ * 聚合用Collector表示，combiner要满足结合律，并且把右边的结果合并到左边（或者返回新对象），不能修改、保留右边内部的可变对象。
+ * counting、summingX、averagingX、summarizingX、minBy/maxBy、reducing、joining、toList都满足；
+ * groupingBy这种值也是可变容器的不满足。
+ * finisher每个窗口调用一次，拿到的容器是为这个窗口新合并出来的，不和保存的格子共享，
+ * 所以finisher可以原样返回或者包装它（toList、collectingAndThen(toList(), Collections::unmodifiableList)），
+ * sink可以一直持有窗口结果；finisher不能依赖容器以外的可变状态。
+ * <p>
+ * 内存：任何时候最多保存size/slide个关闭的格子加一个当前格子，前栈还有同样多的合并结果，与事件数无关；
+ * 没有事件的格子不分配。size/slide不能超过MAX_PANES
+ *
+ * <pre>
+ *   WindowedAggregator&lt;Trade, ?, IntSummaryStatistics&gt; perMinute = WindowedAggregator.sliding(
+ *           Duration.ofMinutes(1), Duration.ofSeconds(10), Trade::getTime,
+ *           Collectors.summarizingInt(Trade::getQuantity), window -&gt; report(window));
+ *   trades.forEach(perMinute);
+ *   perMinute.advanceTo(clock.instant());
+ * </pre>
+ *
+ * 事件时间要基本有序：早于当前格子的事件丢弃并计入lateEvents。不是线程安全的
+ *
+ * @author gongzuo.zy
+ * @version $Id: WindowedAggregator.java, v0.1 2026-10-19 07:30  gongzuo.zy Exp $
+ */
+public final class WindowedAggregator<T, A, R> implements Consumer<T> {
+
+    public static final int MAX_PANES = 1 << 16;
+
+    private final long sizeMillis;
+
+    private final long slideMillis;
+
+    // 一个窗口有几个格子
+    private final int panes;
+
+    private final Function<? super T, Instant> timestamp;
+
+    private final Supplier<A> supplier;
+
+    private final BiConsumer<A, ? super T> accumulator;
+
+    private final BinaryOperator<A> combiner;
+
+    private final Function<A, R> finisher;
+
+    private final Consumer<? super Window<R>> sink;
+
+    // 当前格子，没有事件时为null
+    private long paneStart = Long.MIN_VALUE;
+
+    private A current;
+
+    private long currentCount;
+
+    // 后栈：关闭的格子（index 0最老）和它们的合并结果
+    private final Object[] backPanes;
+
+    private final long[] backCounts;
+
+    private int backSize;
+
+    private A backAggregate;
+
+    private long backCount;
+
+    // 前栈：栈顶是最老的格子，每个位置是它到栈底的合并结果
+    private final Object[] frontAggregates;
+
+    private final long[] frontCounts;
+
+    private int frontSize;
+
+    private long events;
+
+    private long lateEvents;
+
+    private long windows;
+
+    private WindowedAggregator(Duration size, Duration slide, Function<? super T, Instant> timestamp,
+                               Collector<? super T, A, R> collector, Consumer<? super Window<R>> sink) {
+        this.sizeMillis = size.toMillis();
+        this.slideMillis = slide.toMillis();
+        if (slideMillis <= 0 || sizeMillis < slideMillis || sizeMillis % slideMillis != 0) {
+            throw new IllegalArgumentException("size must be a positive multiple of slide: " + size + ", " + slide);
+        }
+        if (sizeMillis / slideMillis > MAX_PANES) {
+            throw new IllegalArgumentException("size/slide must be at most " + MAX_PANES + ": " + size + ", " + slide);
+        }
+        this.panes = (int) (sizeMillis / slideMillis);
+        this.timestamp = Objects.requireNonNull(timestamp);
+        this.supplier = collector.supplier();
+        this.accumulator = collector.accumulator();
+        this.combiner = collector.combiner();
+        this.finisher = collector.finisher();
+        this.sink = Objects.requireNonNull(sink);
+        int capacity = panes > 1 ? panes : 0;
+        this.backPanes = new Object[capacity];
+        this.backCounts = new long[capacity];
+        this.frontAggregates = new Object[capacity];
+        this.frontCounts = new long[capacity];
+    }
+
+    /**
+     * 滚动窗口，窗口之间不重叠
+     */
+    public static <T, A, R> WindowedAggregator<T, A, R> tumbling(Duration size, Function<? super T, Instant> timestamp,
+                                                                 Collector<? super T, A, R> collector,
+                                                                 Consumer<? super Window<R>> sink) {
+        return new WindowedAggregator<>(size, size, timestamp, collector, sink);
+    }
+
+    /**
+     * 滑动窗口，每个事件属于size/slide个窗口
+     */
+    public static <T, A, R> WindowedAggregator<T, A, R> sliding(Duration size, Duration slide,
+                                                                Function<? super T, Instant> timestamp,
+                                                                Collector<? super T, A, R> collector,
+                                                                Consumer<? super Window<R>> sink) {
+        return new WindowedAggregator<>(size, slide, timestamp, collector, sink);
+    }
+
+    @Override
+    public void accept(T event) {
+        long millis = timestamp.apply(event).toEpochMilli();
+        if (millis < paneStart) {
+            lateEvents++;
+            return;
+        }
+        if (millis >= paneStart + slideMillis) {
+            long start = Math.floorDiv(millis, slideMillis) * slideMillis;
+            if (paneStart == Long.MIN_VALUE) {
+                paneStart = start;
+            } else {
+                advance(start);
+            }
+        }
+        if (current == null) {
+            current = supplier.get();
+        }
+        accumulator.accept(current, event);
+        currentCount++;
+        events++;
+    }
+
+    /**
+     * 事件时间已经到了watermark：结束时间不晚于它的窗口都输出，之后早于watermark所在格子的事件算迟到
+     */
+    public void advanceTo(Instant watermark) {
+        long start = Math.floorDiv(watermark.toEpochMilli(), slideMillis) * slideMillis;
+        if (paneStart == Long.MIN_VALUE) {
+            paneStart = start;
+        } else if (start > paneStart) {
+            advance(start);
+        }
+    }
+
+    /*
+     * 输出所有还有事件的窗口，包括没到结束时间的
+     */
+    public void flush() {
+        if (paneStart != Long.MIN_VALUE) {
+            advance(paneStart + sizeMillis);
+        }
+    }
+
+    public long events() {
+        return events;
+    }
+
+    public long lateEvents() {
+        return lateEvents;
+    }
+
+    public long windows() {
+        return windows;
+    }
+
+    // 当前保存的关闭格子数，不超过size/slide - 1
+    public int openPanes() {
+        return frontSize + backSize;
+    }
+
+    /*
+     * 依次关闭start之前的格子；中间全是空窗口时直接跳过去
+     */
+    private void advance(long start) {
+        while (paneStart < start) {
+            if (currentCount == 0 && storedCount() == 0) {
+                clear();
+                paneStart = start;
+                return;
+            }
+            closePane();
+            paneStart += slideMillis;
+        }
+    }
+
+    private void closePane() {
+        long end = paneStart + slideMillis;
+        if (panes == 1) {
+            if (currentCount > 0) {
+                emit(end, currentCount, finisher.apply(current));
+            }
+        } else {
+            push(current, currentCount);
+            long count = storedCount();
+            if (count > 0) {
+                emit(end, count, finisher.apply(query()));
+            }
+            if (frontSize + backSize == panes) {
+                evict();
+            }
+        }
+        current = null;
+        currentCount = 0;
+    }
+
+    private void emit(long end, long count, R result) {
+        windows++;
+        sink.accept(new Window<>(Instant.ofEpochMilli(end - sizeMillis), Instant.ofEpochMilli(end), count, result));
+    }
+
+    private void push(A pane, long count) {
+        backPanes[backSize] = pane;
+        backCounts[backSize] = count;
+        backSize++;
+        if (pane != null) {
+            backAggregate = combiner.apply(backAggregate == null ? supplier.get() : backAggregate, pane);
+            backCount += count;
+        }
+    }
+
+    /*
+     * 保存的合并结果之后还要用，finisher可能原样返回或者包装容器，所以总是合并到一个新容器里
+     */
+    @SuppressWarnings("unchecked")
+    private A query() {
+        A result = supplier.get();
+        if (frontSize > 0 && frontAggregates[frontSize - 1] != null) {
+            result = combiner.apply(result, (A) frontAggregates[frontSize - 1]);
+        }
+        if (backAggregate != null) {
+            result = combiner.apply(result, backAggregate);
+        }
+        return result;
+    }
+
+    private void evict() {
+        if (frontSize == 0) {
+            flip();
+        }
+        frontSize--;
+        frontAggregates[frontSize] = null;
+    }
+
+    /*
+     * 后栈的格子从新到老压进前栈，同时算出后缀合并结果；格子关闭后不再修改，可以直接作为结果的一部分
+     */
+    @SuppressWarnings("unchecked")
+    private void flip() {
+        A suffix = null;
+        long suffixCount = 0;
+        for (int i = backSize - 1; i >= 0; i--) {
+            A pane = (A) backPanes[i];
+            if (pane != null) {
+                suffix = suffix == null ? pane : combiner.apply(combiner.apply(supplier.get(), pane), suffix);
+                suffixCount += backCounts[i];
+            }
+            frontAggregates[frontSize] = suffix;
+            frontCounts[frontSize] = suffixCount;
+            frontSize++;
+            backPanes[i] = null;
+        }
+        backSize = 0;
+        backAggregate = null;
+        backCount = 0;
+    }
+
+    private long storedCount() {
+        return (frontSize == 0 ? 0 : frontCounts[frontSize - 1]) + backCount;
+    }
+
+    private void clear() {
+        for (int i = 0; i < backSize; i++) {
+            backPanes[i] = null;
+        }
+        for (int i = 0; i < frontSize; i++) {
+            frontAggregates[i] = null;
+        }
+        backSize = 0;
+        frontSize = 0;
+        backAggregate = null;
+        backCount = 0;
+        current = null;
+        currentCount = 0;
+    }
+
+    /**
+     * 一个窗口的结果，[start, end)
+     */
+    public static final class Window<R> {
+
+        private final Instant start;
+
+        private final Instant end;
+
+        private final long count;
+
+        private final R result;
+
+        Window(Instant start, Instant end, long count, R result) {
+            this.start = start;
+            this.end = end;
+            this.count = count;
+            this.result = result;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public Instant getEnd() {
+            return end;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public R getResult() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Window[" + start + ", " + end + ") count=" + count + " result=" + result;
+        }
+    }
+}
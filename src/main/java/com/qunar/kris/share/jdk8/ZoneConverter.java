@@ -0,0 +1,351 @@
+/*
+ * Alipay.com Inc.
+ * Copyright (c) 2004-2017 All Rights Reserved.
+ */
+package com.qunar.kris.share.jdk8;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * 批量的时区转换：epochMillis数组和本地时间互转。
+ * 本地时间用localMillis表示，即本地日期时间当作UTC算出来的毫秒数，LocalDateTime.ofEpochSecond(localMillis/1000, .., UTC)就是本地时间。
+ * <p>
+ * 每个时区在第一次使用时把ZoneRules在[1850, 2200)年间的切换点展开成两个long数组，之后不再访问ZoneRules：
+ * 转换时记住上一个元素所在的区间，按时间顺序排列的数据基本只做两次比较，跨区间才二分查找。
+ * 范围外的时间交给ZoneRules逐个计算。
+ * <p>
+ * 本地时间转epochMillis与ZonedDateTime.of(localDateTime, zone)一致：
+ * 夏令时开始跳过的时间按切换前的偏移计算（即往后推一个间隔），重叠的时间取较早的偏移（切换前的偏移）
+ *
+ * <pre>
+ *   ZoneConverter newYork = ZoneConverter.of("America/New_York");
+ *   newYork.toLocalMillis(epochMillis, localMillis);
+ *   newYork.toLocalMillisParallel(hugeEpochMillis, hugeLocalMillis);
+ * </pre>
+ *
+ * 并行版本把数组切成块在当前ForkJoinPool中执行，可以配合ForkJoinPoolRegistry.run指定pool
+ *
+ * @author gongzuo.zy
+ * @version $Id: ZoneConverter.java, v0.1 2026-10-19 06:30  gongzuo.zy Exp $
+ */
+public final class ZoneConverter {
+
+    private static final ConcurrentMap<String, ZoneConverter> BY_NAME = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<ZoneId, ZoneConverter> BY_ZONE = new ConcurrentHashMap<>();
+
+    private static final long MIN_MILLIS = LocalDate.of(1850, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+    private static final long MAX_MILLIS = LocalDate.of(2200, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+    // 本地时间和UTC最多相差一天多，本地时间离表的边界超过两天才查表
+    private static final long MARGIN = 2 * 86400000L;
+
+    // 少于这么多元素时并行版本也串行执行
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int CHUNK = 1 << 14;
+
+    // 按2^31毫秒（约25天）分桶，一个桶里一般最多一个切换点
+    private static final int BUCKET_SHIFT = 31;
+
+    private final ZoneId zone;
+
+    private final ZoneRules rules;
+
+    // 第i个切换点的epochMillis，offsets[i]是它之前的偏移，offsets[i + 1]是之后的偏移
+    private final long[] transitions;
+
+    // 第i个切换点按本地时间的分界：切换时刻加上前后两个偏移中较大的一个，小于它的本地时间用offsets[i]
+    private final long[] localTransitions;
+
+    private final long[] offsets;
+
+    // 每个桶起点所在区间的下标，查找时从这里往后找，不用二分
+    private final int[] buckets;
+
+    private final int[] localBuckets;
+
+    // 表覆盖的范围，fixedOffset时为整个long
+    private final long minMillis;
+
+    private final long maxMillis;
+
+    private ZoneConverter(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        if (rules.isFixedOffset()) {
+            this.transitions = new long[0];
+            this.localTransitions = new long[0];
+            this.offsets = new long[]{rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L};
+            this.buckets = new int[0];
+            this.localBuckets = new int[0];
+            this.minMillis = Long.MIN_VALUE;
+            this.maxMillis = Long.MAX_VALUE;
+            return;
+        }
+        long[] transitions = new long[64];
+        long[] offsets = new long[65];
+        offsets[0] = rules.getOffset(Instant.ofEpochMilli(MIN_MILLIS)).getTotalSeconds() * 1000L;
+        int count = 0;
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(MIN_MILLIS));
+        while (transition != null && transition.getInstant().toEpochMilli() < MAX_MILLIS) {
+            if (count == transitions.length) {
+                transitions = Arrays.copyOf(transitions, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            transitions[count] = transition.getInstant().toEpochMilli();
+            offsets[count + 1] = transition.getOffsetAfter().getTotalSeconds() * 1000L;
+            count++;
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        this.transitions = Arrays.copyOf(transitions, count);
+        this.offsets = Arrays.copyOf(offsets, count + 1);
+        this.localTransitions = new long[count];
+        for (int i = 0; i < count; i++) {
+            localTransitions[i] = transitions[i] + Math.max(offsets[i], offsets[i + 1]);
+        }
+        this.minMillis = MIN_MILLIS;
+        this.maxMillis = MAX_MILLIS;
+        this.buckets = buckets(this.transitions);
+        this.localBuckets = buckets(localTransitions);
+    }
+
+    private static int[] buckets(long[] bounds) {
+        int[] buckets = new int[(int) ((MAX_MILLIS - MIN_MILLIS) >>> BUCKET_SHIFT) + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = index(bounds, MIN_MILLIS + ((long) i << BUCKET_SHIFT));
+        }
+        return buckets;
+    }
+
+    /**
+     * 按名字缓存，不用每次ZoneId.of
+     */
+    public static ZoneConverter of(String zoneId) {
+        ZoneConverter converter = BY_NAME.get(zoneId);
+        if (converter == null) {
+            converter = BY_NAME.computeIfAbsent(zoneId, id -> of(ZoneId.of(id)));
+        }
+        return converter;
+    }
+
+    public static ZoneConverter of(ZoneId zone) {
+        Objects.requireNonNull(zone);
+        return BY_ZONE.computeIfAbsent(zone, ZoneConverter::new);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * 表中的切换点个数，固定偏移的时区为0
+     */
+    public int transitionCount() {
+        return transitions.length;
+    }
+
+    // ---------- 单个值 ----------
+
+    public long toLocalMillis(long epochMillis) {
+        if (epochMillis < minMillis || epochMillis >= maxMillis) {
+            return epochMillis + offsetMillisSlow(epochMillis);
+        }
+        return epochMillis + offsets[index(transitions, buckets, epochMillis)];
+    }
+
+    public long toEpochMillis(long localMillis) {
+        if (localMillis < minMillis + MARGIN || localMillis >= maxMillis - MARGIN) {
+            return toEpochMillisSlow(localMillis);
+        }
+        return localMillis - offsets[index(localTransitions, localBuckets, localMillis)];
+    }
+
+    // ---------- 数组 ----------
+
+    /*
+     * localMillis[i] = epochMillis[i]在这个时区的本地时间，两个数组可以是同一个
+     */
+    public void toLocalMillis(long[] epochMillis, long[] localMillis) {
+        checkLength(epochMillis.length, localMillis.length);
+        toLocalMillis(epochMillis, localMillis, 0, epochMillis.length);
+    }
+
+    public void toEpochMillis(long[] localMillis, long[] epochMillis) {
+        checkLength(localMillis.length, epochMillis.length);
+        toEpochMillis(localMillis, epochMillis, 0, localMillis.length);
+    }
+
+    /*
+     * 偏移秒数，与ZoneRules.getOffset(instant).getTotalSeconds()一致
+     */
+    public void offsetSeconds(long[] epochMillis, int[] offsetSeconds) {
+        checkLength(epochMillis.length, offsetSeconds.length);
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        long offset = 0;
+        for (int i = 0; i < epochMillis.length; i++) {
+            long millis = epochMillis[i];
+            if (millis < low || millis >= high) {
+                if (millis < minMillis || millis >= maxMillis) {
+                    offsetSeconds[i] = (int) (offsetMillisSlow(millis) / 1000);
+                    continue;
+                }
+                int index = index(transitions, buckets, millis);
+                low = index == 0 ? minMillis : transitions[index - 1];
+                high = index == transitions.length ? maxMillis : transitions[index];
+                offset = offsets[index];
+            }
+            offsetSeconds[i] = (int) (offset / 1000);
+        }
+    }
+
+    public void toLocalDateTimes(long[] epochMillis, LocalDateTime[] localDateTimes) {
+        checkLength(epochMillis.length, localDateTimes.length);
+        long[] local = new long[Math.min(epochMillis.length, CHUNK)];
+        for (int from = 0; from < epochMillis.length; from += local.length) {
+            int length = Math.min(local.length, epochMillis.length - from);
+            System.arraycopy(epochMillis, from, local, 0, length);
+            toLocalMillis(local, local, 0, length);
+            for (int i = 0; i < length; i++) {
+                localDateTimes[from + i] = toLocalDateTime(local[i]);
+            }
+        }
+    }
+
+    public void toEpochMillis(LocalDateTime[] localDateTimes, long[] epochMillis) {
+        checkLength(localDateTimes.length, epochMillis.length);
+        for (int i = 0; i < localDateTimes.length; i++) {
+            LocalDateTime dateTime = localDateTimes[i];
+            epochMillis[i] = dateTime.toEpochSecond(ZoneOffset.UTC) * 1000 + dateTime.getNano() / 1000000;
+        }
+        toEpochMillis(epochMillis, epochMillis, 0, epochMillis.length);
+    }
+
+    // ---------- 并行 ----------
+
+    public void toLocalMillisParallel(long[] epochMillis, long[] localMillis) {
+        checkLength(epochMillis.length, localMillis.length);
+        if (epochMillis.length < PARALLEL_THRESHOLD) {
+            toLocalMillis(epochMillis, localMillis, 0, epochMillis.length);
+            return;
+        }
+        chunks(epochMillis.length).forEach(c -> toLocalMillis(epochMillis, localMillis, c * CHUNK,
+                Math.min(epochMillis.length, c * CHUNK + CHUNK)));
+    }
+
+    public void toEpochMillisParallel(long[] localMillis, long[] epochMillis) {
+        checkLength(localMillis.length, epochMillis.length);
+        if (localMillis.length < PARALLEL_THRESHOLD) {
+            toEpochMillis(localMillis, epochMillis, 0, localMillis.length);
+            return;
+        }
+        chunks(localMillis.length).forEach(c -> toEpochMillis(localMillis, epochMillis, c * CHUNK,
+                Math.min(localMillis.length, c * CHUNK + CHUNK)));
+    }
+
+    private static IntStream chunks(int length) {
+        return IntStream.range(0, (length + CHUNK - 1) / CHUNK).parallel();
+    }
+
+    // ---------- 实现 ----------
+
+    /*
+     * 当前区间是[low, high)，偏移是offset；元素落在区间内时只比较两次
+     */
+    private void toLocalMillis(long[] epochMillis, long[] localMillis, int from, int to) {
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        long offset = 0;
+        for (int i = from; i < to; i++) {
+            long millis = epochMillis[i];
+            if (millis < low || millis >= high) {
+                if (millis < minMillis || millis >= maxMillis) {
+                    localMillis[i] = millis + offsetMillisSlow(millis);
+                    continue;
+                }
+                int index = index(transitions, buckets, millis);
+                low = index == 0 ? minMillis : transitions[index - 1];
+                high = index == transitions.length ? maxMillis : transitions[index];
+                offset = offsets[index];
+            }
+            localMillis[i] = millis + offset;
+        }
+    }
+
+    private void toEpochMillis(long[] localMillis, long[] epochMillis, int from, int to) {
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        long offset = 0;
+        long tableLow = minMillis + MARGIN;
+        long tableHigh = maxMillis - MARGIN;
+        for (int i = from; i < to; i++) {
+            long millis = localMillis[i];
+            if (millis < low || millis >= high) {
+                if (millis < tableLow || millis >= tableHigh) {
+                    epochMillis[i] = toEpochMillisSlow(millis);
+                    continue;
+                }
+                int index = index(localTransitions, localBuckets, millis);
+                low = index == 0 ? tableLow : localTransitions[index - 1];
+                high = index == localTransitions.length ? tableHigh : localTransitions[index];
+                offset = offsets[index];
+            }
+            epochMillis[i] = millis - offset;
+        }
+    }
+
+    /*
+     * 小于等于millis的分界个数，也就是millis所在区间的偏移下标；调用方保证millis在表的范围内
+     */
+    private int index(long[] bounds, int[] buckets, long millis) {
+        if (bounds.length == 0) {
+            return 0;
+        }
+        int index = buckets[(int) ((millis - minMillis) >>> BUCKET_SHIFT)];
+        while (index < bounds.length && bounds[index] <= millis) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int index(long[] bounds, long millis) {
+        int index = Arrays.binarySearch(bounds, millis);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private long offsetMillisSlow(long epochMillis) {
+        return rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+    }
+
+    private long toEpochMillisSlow(long localMillis) {
+        return toLocalDateTime(localMillis).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long localMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000), (int) Math.floorMod(localMillis, 1000) * 1000000, ZoneOffset.UTC);
+    }
+
+    private static void checkLength(int source, int target) {
+        if (target < source) {
+            throw new IllegalArgumentException("target length " + target + " is less than source length " + source);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneConverter[" + zone + "," + transitions.length + " transitions]";
+    }
+}